@@ -0,0 +1,26 @@
+package com.coditory.freemarker.reactor;
+
+import com.coditory.freemarker.reactor.loader.TemplateLoader;
+import reactor.core.publisher.Mono;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+final class InMemoryTemplateLoader implements TemplateLoader {
+    private final Map<TemplateKey, String> templates = new ConcurrentHashMap<>();
+
+    InMemoryTemplateLoader add(String name, String content) {
+        return add(null, name, null, content);
+    }
+
+    InMemoryTemplateLoader add(String module, String name, Locale locale, String content) {
+        templates.put(new TemplateKey(module, name, locale), content);
+        return this;
+    }
+
+    @Override
+    public Mono<String> loadTemplate(TemplateKey key) {
+        return Mono.justOrEmpty(templates.get(key));
+    }
+}
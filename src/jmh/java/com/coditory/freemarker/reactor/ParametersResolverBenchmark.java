@@ -0,0 +1,53 @@
+package com.coditory.freemarker.reactor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParametersResolverBenchmark {
+    @Param({"0", "5", "15", "50"})
+    public int publishers;
+
+    private final ParametersResolver resolver = new ParametersResolver(ParametersResolver.DEFAULT_CONCURRENCY, false);
+    private Map<String, Object> params;
+
+    @Setup
+    public void setup() {
+        params = new HashMap<>();
+        Map<String, Object> nested = new HashMap<>();
+        for (int i = 0; i < publishers; ++i) {
+            params.put("mono" + i, Mono.just("value" + i));
+            nested.put("flux" + i, Flux.fromIterable(List.of("a" + i, "b" + i)));
+        }
+        for (int i = 0; i < 10; ++i) {
+            params.put("value" + i, "value" + i);
+        }
+        params.put("nested", nested);
+    }
+
+    @Benchmark
+    public Map<String, Object> resolveParams() {
+        return resolver.resolveParams(params).block();
+    }
+}
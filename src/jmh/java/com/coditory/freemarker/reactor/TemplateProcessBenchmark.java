@@ -0,0 +1,57 @@
+package com.coditory.freemarker.reactor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.coditory.freemarker.reactor.TemplateShapes.ROOT;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TemplateProcessBenchmark {
+    @Param({"flat", "nested"})
+    public String shape;
+
+    @Param({"1", "10", "30"})
+    public int size;
+
+    private final Map<String, Object> params = Map.of("title", "Benchmark");
+    private TemplateFactory factory;
+    private Template template;
+
+    @Setup
+    public void setup() {
+        factory = TemplateFactory.builder()
+                .setTemplateLoader(TemplateShapes.create(shape, size))
+                .build();
+        template = factory.createTemplate(ROOT).block();
+        template.process(params).block();
+    }
+
+    @Benchmark
+    public String process() {
+        return template.process(params).block();
+    }
+
+    @Benchmark
+    public String createAndProcess() {
+        return factory.createTemplate(ROOT)
+                .flatMap(it -> it.process(params))
+                .block();
+    }
+}
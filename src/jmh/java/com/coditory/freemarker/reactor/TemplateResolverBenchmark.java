@@ -0,0 +1,71 @@
+package com.coditory.freemarker.reactor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TemplateResolverBenchmark {
+    @Param({"exact", "language", "default", "index", "common-module"})
+    public String fallback;
+
+    @Param({"true", "false"})
+    public boolean cached;
+
+    private TemplateResolver resolver;
+    private TemplateRequest request;
+
+    @Setup
+    public void setup() {
+        InMemoryTemplateLoader loader = new InMemoryTemplateLoader();
+        switch (fallback) {
+            case "exact":
+                loader.add(null, "page", Locale.GERMANY, "page");
+                break;
+            case "language":
+                loader.add(null, "page", Locale.GERMAN, "page");
+                break;
+            case "default":
+                loader.add("page", "page");
+                break;
+            case "index":
+                loader.add("page/_index", "page");
+                break;
+            case "common-module":
+                loader.add("common", "page", null, "page");
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown fallback: " + fallback);
+        }
+        Cache<TemplateRequest, ResolvedTemplate> cache = cached
+                ? Cache.concurrentMapCache()
+                : Cache.alwaysEmpty();
+        resolver = new TemplateResolver(loader, List.of("shared", "common"), cache, null, TemplateResolver.DEFAULT_PROBE_PARALLELISM);
+        request = TemplateRequest.builder("page")
+                .setModules(List.of("app"))
+                .setLocale(Locale.GERMANY)
+                .build();
+    }
+
+    @Benchmark
+    public ResolvedTemplate resolveTemplate() {
+        return resolver.resolveTemplate(request).block();
+    }
+}
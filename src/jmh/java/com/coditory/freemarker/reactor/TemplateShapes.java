@@ -0,0 +1,42 @@
+package com.coditory.freemarker.reactor;
+
+final class TemplateShapes {
+    static final String ROOT = "root";
+
+    private TemplateShapes() {
+    }
+
+    static InMemoryTemplateLoader flat(int includes) {
+        InMemoryTemplateLoader loader = new InMemoryTemplateLoader();
+        StringBuilder root = new StringBuilder("<h1>${title}</h1>\n");
+        for (int i = 0; i < includes; ++i) {
+            String name = "flat/part-" + i;
+            root.append("<@include \"").append(name).append("\"/>\n");
+            loader.add(name, "<p>Part " + i + ": ${title}</p>\n");
+        }
+        return loader.add(ROOT, root.toString());
+    }
+
+    static InMemoryTemplateLoader nested(int depth) {
+        InMemoryTemplateLoader loader = new InMemoryTemplateLoader();
+        loader.add(ROOT, "<h1>${title}</h1>\n<@include \"nested/level-0\"/>\n");
+        for (int i = 0; i < depth; ++i) {
+            String content = i == depth - 1
+                    ? "<p>Level " + i + "</p>\n"
+                    : "<p>Level " + i + "</p>\n<@include \"./level-" + (i + 1) + "\"/>\n";
+            loader.add("nested/level-" + i, content);
+        }
+        return loader;
+    }
+
+    static InMemoryTemplateLoader create(String shape, int size) {
+        switch (shape) {
+            case "flat":
+                return flat(size);
+            case "nested":
+                return nested(size);
+            default:
+                throw new IllegalArgumentException("Unknown template shape: " + shape);
+        }
+    }
+}
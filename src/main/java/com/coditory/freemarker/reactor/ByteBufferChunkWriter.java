@@ -0,0 +1,142 @@
+package com.coditory.freemarker.reactor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+import static java.util.Objects.requireNonNull;
+
+final class ByteBufferChunkWriter extends Writer {
+    private final CharsetEncoder encoder;
+    private final int chunkSize;
+    private final ChunkConsumer consumer;
+    private final boolean reuseChunk;
+    private ByteBuffer chunk;
+    private CharBuffer pending;
+    private boolean closed;
+    private long writtenLength;
+
+    // Every emitted chunk is a new buffer owned by the consumer
+    ByteBufferChunkWriter(Charset charset, int chunkSize, ChunkConsumer consumer) {
+        this(charset, ByteBuffer.allocate(validateChunkSize(chunkSize)), consumer, false);
+    }
+
+    // The given buffer is emitted over and over again, so the consumer must not keep it after accept returns
+    ByteBufferChunkWriter(Charset charset, ByteBuffer reusedChunk, ChunkConsumer consumer) {
+        this(charset, reusedChunk.clear(), consumer, true);
+    }
+
+    private ByteBufferChunkWriter(Charset charset, ByteBuffer chunk, ChunkConsumer consumer, boolean reuseChunk) {
+        requireNonNull(charset);
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.chunkSize = validateChunkSize(chunk.capacity());
+        this.consumer = requireNonNull(consumer);
+        this.chunk = chunk;
+        this.reuseChunk = reuseChunk;
+    }
+
+    private static int validateChunkSize(int chunkSize) {
+        if (chunkSize < 16) {
+            throw new IllegalArgumentException("Expected chunk size of at least 16 bytes. Got: " + chunkSize);
+        }
+        return chunkSize;
+    }
+
+    @Override
+    public void write(char[] chars, int offset, int length) throws IOException {
+        write(CharBuffer.wrap(chars, offset, length));
+    }
+
+    @Override
+    public void write(String text, int offset, int length) throws IOException {
+        write(CharBuffer.wrap(text, offset, offset + length));
+    }
+
+    private void write(CharBuffer input) throws IOException {
+        ensureOpen();
+        if (pending != null) {
+            CharBuffer joined = CharBuffer.allocate(pending.remaining() + input.remaining());
+            joined.put(pending).put(input).flip();
+            input = joined;
+            pending = null;
+        }
+        encode(input, false);
+        if (input.hasRemaining()) {
+            // incomplete surrogate pair is encoded with the next write
+            pending = CharBuffer.allocate(input.remaining());
+            pending.put(input).flip();
+        }
+    }
+
+    private void encode(CharBuffer input, boolean endOfInput) throws IOException {
+        while (true) {
+            CoderResult result = encoder.encode(input, chunk, endOfInput);
+            if (result.isUnderflow()) {
+                return;
+            }
+            if (result.isOverflow()) {
+                emitChunk();
+            } else {
+                result.throwException();
+            }
+        }
+    }
+
+    private void emitChunk() throws IOException {
+        if (chunk.position() == 0) {
+            return;
+        }
+        chunk.flip();
+        writtenLength += chunk.remaining();
+        if (reuseChunk) {
+            consumer.accept(chunk);
+            chunk.clear();
+            return;
+        }
+        ByteBuffer emitted = chunk;
+        chunk = ByteBuffer.allocate(chunkSize);
+        consumer.accept(emitted);
+    }
+
+    // number of encoded bytes emitted so far
+    long getWrittenLength() {
+        return writtenLength;
+    }
+
+    @Override
+    public void flush() {
+        // chunks are emitted when full or on close
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        encode(pending != null ? pending : CharBuffer.allocate(0), true);
+        pending = null;
+        while (encoder.flush(chunk).isOverflow()) {
+            emitChunk();
+        }
+        emitChunk();
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Writer is closed");
+        }
+    }
+
+    @FunctionalInterface
+    interface ChunkConsumer {
+        void accept(ByteBuffer chunk) throws IOException;
+    }
+}
@@ -3,8 +3,10 @@ package com.coditory.freemarker.reactor;
 import reactor.core.publisher.Mono;
 
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static java.util.Collections.synchronizedMap;
 
 public interface Cache<K, V> {
     static <K, V> Cache<K, V> alwaysEmpty() {
@@ -12,9 +14,24 @@ public interface Cache<K, V> {
     }
 
     static <K, V> Cache<K, V> concurrentMapCache() {
-        ConcurrentMap<K, Mono<V>> map = new ConcurrentHashMap<>();
-        return map::computeIfAbsent;
+        return new MemoizingCache<>(new ConcurrentHashMap<>());
+    }
+
+    static <K, V> Cache<K, V> lruCache(int maxSize) {
+        return new MemoizingCache<>(synchronizedMap(new LruMap<>(maxSize)));
     }
 
     Mono<V> getOrLoad(K key, Function<K, Mono<V>> load);
+
+    default void invalidate(K key) {
+        // no-op by default
+    }
+
+    default void invalidateIf(Predicate<K> predicate) {
+        // no-op by default
+    }
+
+    default void invalidateAll() {
+        invalidateIf(key -> true);
+    }
 }
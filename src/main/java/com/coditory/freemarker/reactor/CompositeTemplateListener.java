@@ -0,0 +1,53 @@
+package com.coditory.freemarker.reactor;
+
+import java.util.List;
+
+final class CompositeTemplateListener implements TemplateListener {
+    private final TemplateListener[] listeners;
+
+    CompositeTemplateListener(List<TemplateListener> listeners) {
+        this.listeners = listeners.toArray(new TemplateListener[0]);
+    }
+
+    @Override
+    public void onTemplateLoaded(TemplateKey key, boolean found, long durationNanos) {
+        for (TemplateListener listener : listeners) {
+            listener.onTemplateLoaded(key, found, durationNanos);
+        }
+    }
+
+    @Override
+    public void onTemplateResolved(TemplateRequest request, TemplateKey resolvedKey, int fallbackDepth, long durationNanos) {
+        for (TemplateListener listener : listeners) {
+            listener.onTemplateResolved(request, resolvedKey, fallbackDepth, durationNanos);
+        }
+    }
+
+    @Override
+    public void onTemplateParsed(TemplateKey key, long durationNanos) {
+        for (TemplateListener listener : listeners) {
+            listener.onTemplateParsed(key, durationNanos);
+        }
+    }
+
+    @Override
+    public void onTemplateCreated(TemplateKey key, int dependencies, long durationNanos) {
+        for (TemplateListener listener : listeners) {
+            listener.onTemplateCreated(key, dependencies, durationNanos);
+        }
+    }
+
+    @Override
+    public void onTemplateProcessed(TemplateKey key, int renderPasses, long outputLength, long durationNanos) {
+        for (TemplateListener listener : listeners) {
+            listener.onTemplateProcessed(key, renderPasses, outputLength, durationNanos);
+        }
+    }
+
+    @Override
+    public void onCacheAccess(CacheType cacheType, boolean hit) {
+        for (TemplateListener listener : listeners) {
+            listener.onCacheAccess(cacheType, hit);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.coditory.freemarker.reactor;
+
+import java.util.Arrays;
+
+// Directed graph with integer node ids and an incrementally maintained topological order
+// (Pearce-Kelly), so adding an edge only inspects nodes between its endpoints in the order.
+// Not thread safe.
+final class DependencyGraph {
+    private static final int INITIAL_CAPACITY = 8;
+    private int size;
+    private int[][] successors = new int[INITIAL_CAPACITY][];
+    private int[] successorCounts = new int[INITIAL_CAPACITY];
+    private int[][] predecessors = new int[INITIAL_CAPACITY][];
+    private int[] predecessorCounts = new int[INITIAL_CAPACITY];
+    // node id -> position in topological order, edges point from lower to higher positions
+    private int[] order = new int[INITIAL_CAPACITY];
+    private int[] visited = new int[INITIAL_CAPACITY];
+    private int visitMark;
+    private int[] stack = new int[INITIAL_CAPACITY];
+    private int[] forward = new int[INITIAL_CAPACITY];
+    private int[] backward = new int[INITIAL_CAPACITY];
+
+    int addNode() {
+        if (size == order.length) {
+            grow();
+        }
+        int id = size++;
+        order[id] = id;
+        return id;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean hasEdge(int from, int to) {
+        int[] nodes = successors[from];
+        for (int i = 0; i < successorCounts[from]; ++i) {
+            if (nodes[i] == to) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Returns false when the edge would create a cycle
+    boolean addEdge(int from, int to) {
+        if (from == to) {
+            return false;
+        }
+        if (hasEdge(from, to)) {
+            return true;
+        }
+        int lowerBound = order[to];
+        int upperBound = order[from];
+        if (lowerBound < upperBound) {
+            nextVisitMark();
+            int forwardCount = collectForward(to, upperBound, from);
+            if (forwardCount < 0) {
+                return false;
+            }
+            int backwardCount = collectBackward(from, lowerBound);
+            reorder(forwardCount, backwardCount);
+        }
+        successors[from] = append(successors[from], successorCounts[from]++, to);
+        predecessors[to] = append(predecessors[to], predecessorCounts[to]++, from);
+        return true;
+    }
+
+    private int collectForward(int start, int upperBound, int target) {
+        int count = 0;
+        int top = 0;
+        stack[top++] = start;
+        visited[start] = visitMark;
+        while (top > 0) {
+            int node = stack[--top];
+            forward[count++] = node;
+            int[] nodes = successors[node];
+            for (int i = 0; i < successorCounts[node]; ++i) {
+                int next = nodes[i];
+                if (next == target) {
+                    return -1;
+                }
+                if (visited[next] != visitMark && order[next] < upperBound) {
+                    visited[next] = visitMark;
+                    stack[top++] = next;
+                }
+            }
+        }
+        return count;
+    }
+
+    private int collectBackward(int start, int lowerBound) {
+        int count = 0;
+        int top = 0;
+        stack[top++] = start;
+        visited[start] = visitMark;
+        while (top > 0) {
+            int node = stack[--top];
+            backward[count++] = node;
+            int[] nodes = predecessors[node];
+            for (int i = 0; i < predecessorCounts[node]; ++i) {
+                int previous = nodes[i];
+                if (visited[previous] != visitMark && order[previous] > lowerBound) {
+                    visited[previous] = visitMark;
+                    stack[top++] = previous;
+                }
+            }
+        }
+        return count;
+    }
+
+    private void reorder(int forwardCount, int backwardCount) {
+        sortByOrder(forward, forwardCount);
+        sortByOrder(backward, backwardCount);
+        // nodes reaching the new edge source take the lowest freed positions
+        int[] positions = new int[forwardCount + backwardCount];
+        for (int i = 0; i < backwardCount; ++i) {
+            positions[i] = order[backward[i]];
+        }
+        for (int i = 0; i < forwardCount; ++i) {
+            positions[backwardCount + i] = order[forward[i]];
+        }
+        Arrays.sort(positions);
+        for (int i = 0; i < backwardCount; ++i) {
+            order[backward[i]] = positions[i];
+        }
+        for (int i = 0; i < forwardCount; ++i) {
+            order[forward[i]] = positions[backwardCount + i];
+        }
+    }
+
+    private void sortByOrder(int[] nodes, int count) {
+        // affected regions are small, insertion sort avoids boxing
+        for (int i = 1; i < count; ++i) {
+            int node = nodes[i];
+            int j = i - 1;
+            while (j >= 0 && order[nodes[j]] > order[node]) {
+                nodes[j + 1] = nodes[j];
+                --j;
+            }
+            nodes[j + 1] = node;
+        }
+    }
+
+    private void nextVisitMark() {
+        if (++visitMark == Integer.MAX_VALUE) {
+            Arrays.fill(visited, 0);
+            visitMark = 1;
+        }
+    }
+
+    private void grow() {
+        int capacity = order.length * 2;
+        successors = Arrays.copyOf(successors, capacity);
+        successorCounts = Arrays.copyOf(successorCounts, capacity);
+        predecessors = Arrays.copyOf(predecessors, capacity);
+        predecessorCounts = Arrays.copyOf(predecessorCounts, capacity);
+        order = Arrays.copyOf(order, capacity);
+        visited = Arrays.copyOf(visited, capacity);
+        stack = new int[capacity];
+        forward = new int[capacity];
+        backward = new int[capacity];
+    }
+
+    private static int[] append(int[] nodes, int count, int node) {
+        if (nodes == null) {
+            nodes = new int[4];
+        } else if (count == nodes.length) {
+            nodes = Arrays.copyOf(nodes, count * 2);
+        }
+        nodes[count] = node;
+        return nodes;
+    }
+}
@@ -22,8 +22,9 @@ final class FreeMarkerTemplateLoaderAdapter implements TemplateLoader {
     }
 
     private String load(String name) {
-        TemplateResolutionContext context = TemplateResolutionContext.getFromThreadLocal();
-        TemplateKey key = context.getParentTemplate().withName(name);
+        TemplateProcessingContext processingContext = TemplateProcessingContext.getFromThreadLocal();
+        TemplateResolutionContext context = processingContext.getResolutionContext();
+        TemplateKey key = processingContext.getParentTemplate().withNameCached(name);
         if (!context.isRegistered(key)) {
             throw new TemplateResolutionException(
                     "Template dependency not recognized. " +
@@ -2,6 +2,7 @@ package com.coditory.freemarker.reactor;
 
 import freemarker.core.Environment;
 import freemarker.core._MiscTemplateException;
+import freemarker.template.Template;
 import freemarker.template.TemplateDirectiveBody;
 import freemarker.template.TemplateException;
 import freemarker.template.TemplateModel;
@@ -18,6 +19,11 @@ import static java.util.Objects.requireNonNull;
 
 final class ImportDirective implements TemplateDirective {
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final ParsedTemplateCache parsedTemplates;
+
+    ImportDirective(ParsedTemplateCache parsedTemplates) {
+        this.parsedTemplates = requireNonNull(parsedTemplates);
+    }
 
     @Override
     public void execute(
@@ -31,28 +37,35 @@ final class ImportDirective implements TemplateDirective {
         requireNonNull(params);
         requireNonNull(positional);
         requireNonNull(loopVars);
-        TemplateResolutionContext context = TemplateResolutionContext.getFromThreadLocal();
-        TemplateKey currentTemplateKey = context.getCurrentTemplate(env);
+        TemplateProcessingContext processingContext = TemplateProcessingContext.getFromThreadLocal();
+        TemplateResolutionContext context = processingContext.getResolutionContext();
+        TemplateKey currentTemplateKey = processingContext.getCurrentTemplate(env);
         TemplateKey importKey = getImport(currentTemplateKey, env, params, positional);
         String importNameSpace = getImportNameSpace(importKey, params, positional);
         context.addDependency(currentTemplateKey, importKey);
+        processingContext.resolveDependency(importKey);
         if (context.isMissing(importKey)) {
             throw new _MiscTemplateException(env, "Missing template to import: " + importKey);
         }
         if (context.isResolved(importKey)) {
+            ResolvedTemplate resolvedImport = context.getResolved(importKey);
+            processingContext.enterDependency(currentTemplateKey);
             try {
-                TemplateKey parent = context.getParentTemplate();
-                context.setParentTemplate(currentTemplateKey);
-                env.importLib(importKey.getName(), importNameSpace);
+                Template importedTemplate = parsedTemplates.getOrParse(importKey, resolvedImport, true);
+                env.importLib(importedTemplate, importNameSpace);
                 logger.debug("Imported template {} as '{}' into {}", importKey, importNameSpace, currentTemplateKey);
-                context.setParentTemplate(parent);
             } catch (IOException e) {
                 throw new _MiscTemplateException(
                         e, env,
                         "Could not import template: " + importKey + ":\n",
                         e.getMessage()
                 );
+            } finally {
+                processingContext.exitDependency();
             }
+        } else if (!context.isMissing(importKey)) {
+            // the dependency is rendered in the next pass, once it is resolved
+            processingContext.skipDependency();
         }
     }
 
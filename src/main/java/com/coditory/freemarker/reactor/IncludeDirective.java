@@ -18,6 +18,11 @@ import static java.util.Objects.requireNonNull;
 
 final class IncludeDirective implements TemplateDirective {
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final ParsedTemplateCache parsedTemplates;
+
+    IncludeDirective(ParsedTemplateCache parsedTemplates) {
+        this.parsedTemplates = requireNonNull(parsedTemplates);
+    }
 
     @Override
     public void execute(
@@ -31,33 +36,36 @@ final class IncludeDirective implements TemplateDirective {
         requireNonNull(params);
         requireNonNull(positional);
         requireNonNull(loopVars);
-        TemplateResolutionContext context = TemplateResolutionContext.getFromThreadLocal();
-        TemplateKey currentTemplateKey = context.getCurrentTemplate(env);
+        TemplateProcessingContext processingContext = TemplateProcessingContext.getFromThreadLocal();
+        TemplateResolutionContext context = processingContext.getResolutionContext();
+        TemplateKey currentTemplateKey = processingContext.getCurrentTemplate(env);
         TemplateKey includeKey = getInclude(currentTemplateKey, env, params, positional);
         boolean parse = getNamedBooleanParamOrTrue(env, params, "parse");
         boolean required = getNamedBooleanParamOrTrue(env, params, "required");
         context.addDependency(currentTemplateKey, includeKey);
+        processingContext.resolveDependency(includeKey);
         if (required && context.isMissing(includeKey)) {
             throw new _MiscTemplateException(env, "Missing template to include: " + includeKey);
         }
         if (context.isResolved(includeKey)) {
-            Template includedTemplate;
+            ResolvedTemplate resolvedInclude = context.getResolved(includeKey);
+            processingContext.enterDependency(currentTemplateKey);
             try {
-                TemplateKey parent = context.getParentTemplate();
-                context.setParentTemplate(currentTemplateKey);
-                includedTemplate = env.getTemplateForInclusion(includeKey.getName(), null, parse, true);
-                if (includedTemplate != null) {
-                    env.include(includedTemplate);
-                }
+                Template includedTemplate = parsedTemplates.getOrParse(includeKey, resolvedInclude, parse);
+                env.include(includedTemplate);
                 logger.debug("Included template {} into {}", includeKey, currentTemplateKey);
-                context.setParentTemplate(parent);
             } catch (IOException e) {
                 throw new _MiscTemplateException(
                         e, env,
                         "Could not include template:" + includeKey + ":\n",
                         e.getMessage()
                 );
+            } finally {
+                processingContext.exitDependency();
             }
+        } else if (!context.isMissing(includeKey)) {
+            // the dependency is rendered in the next pass, once it is resolved
+            processingContext.skipDependency();
         }
     }
 
@@ -0,0 +1,21 @@
+package com.coditory.freemarker.reactor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+final class LruMap<K, V> extends LinkedHashMap<K, V> {
+    private final int maxSize;
+
+    LruMap(int maxSize) {
+        super(16, 0.75f, true);
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Expected non-negative max size. Got: " + maxSize);
+        }
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+        return size() > maxSize;
+    }
+}
@@ -0,0 +1,51 @@
+package com.coditory.freemarker.reactor;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static java.util.Objects.requireNonNull;
+
+final class MemoizingCache<K, V> implements Cache<K, V> {
+    private static final Duration FOREVER = Duration.ofMillis(Long.MAX_VALUE);
+    private final Map<K, Mono<V>> values;
+
+    MemoizingCache(Map<K, Mono<V>> values) {
+        this.values = requireNonNull(values);
+    }
+
+    @Override
+    public Mono<V> getOrLoad(K key, Function<K, Mono<V>> load) {
+        requireNonNull(key);
+        requireNonNull(load);
+        return values.computeIfAbsent(key, it -> memoize(it, load));
+    }
+
+    @Override
+    public void invalidate(K key) {
+        requireNonNull(key);
+        values.remove(key);
+    }
+
+    @Override
+    public void invalidateIf(Predicate<K> predicate) {
+        requireNonNull(predicate);
+        // Iteration over a synchronized map must be guarded by the map itself
+        synchronized (values) {
+            values.keySet().removeIf(predicate);
+        }
+    }
+
+    private Mono<V> memoize(K key, Function<K, Mono<V>> load) {
+        AtomicReference<Mono<V>> memoized = new AtomicReference<>();
+        Mono<V> result = Mono.defer(() -> load.apply(key))
+                .doOnError(e -> values.remove(key, memoized.get()))
+                .cache(value -> FOREVER, error -> Duration.ZERO, () -> FOREVER);
+        memoized.set(result);
+        return result;
+    }
+}
@@ -0,0 +1,50 @@
+package com.coditory.freemarker.reactor;
+
+import com.coditory.freemarker.reactor.TemplateListener.CacheType;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static java.util.Objects.requireNonNull;
+
+final class ObservedCache<K, V> implements Cache<K, V> {
+    private final Cache<K, V> cache;
+    private final CacheType cacheType;
+    private final TemplateListener listener;
+
+    ObservedCache(Cache<K, V> cache, CacheType cacheType, TemplateListener listener) {
+        this.cache = requireNonNull(cache);
+        this.cacheType = requireNonNull(cacheType);
+        this.listener = requireNonNull(listener);
+    }
+
+    @Override
+    public Mono<V> getOrLoad(K key, Function<K, Mono<V>> load) {
+        requireNonNull(load);
+        return Mono.defer(() -> {
+            // a memoized value is served without calling the loader
+            AtomicBoolean loaded = new AtomicBoolean();
+            return cache.getOrLoad(key, it -> {
+                loaded.set(true);
+                return load.apply(it);
+            }).doOnTerminate(() -> listener.onCacheAccess(cacheType, !loaded.get()));
+        });
+    }
+
+    @Override
+    public void invalidate(K key) {
+        cache.invalidate(key);
+    }
+
+    @Override
+    public void invalidateIf(Predicate<K> predicate) {
+        cache.invalidateIf(predicate);
+    }
+
+    @Override
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
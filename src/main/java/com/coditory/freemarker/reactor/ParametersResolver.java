@@ -4,63 +4,320 @@ import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 
+import static java.util.Collections.newSetFromMap;
 import static java.util.Objects.requireNonNull;
 
 final class ParametersResolver {
-    static Mono<Map<String, Object>> resolveParams(Map<String, Object> params) {
+    static final int DEFAULT_CONCURRENCY = 256;
+    private static final ClassValue<List<BeanProperty>> BEAN_PROPERTIES = new ClassValue<>() {
+        @Override
+        protected List<BeanProperty> computeValue(Class<?> type) {
+            return BeanProperty.resolve(type);
+        }
+    };
+    private final int concurrency;
+    private final boolean resolveBeans;
+
+    ParametersResolver(int concurrency, boolean resolveBeans) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Expected positive concurrency. Got: " + concurrency);
+        }
+        this.concurrency = concurrency;
+        this.resolveBeans = resolveBeans;
+    }
+
+    Mono<Map<String, Object>> resolveParams(Map<String, Object> params) {
+        return resolveParams(params, null);
+    }
+
+    Mono<Map<String, Object>> resolveParams(Map<String, Object> params, Set<String> referencedNames) {
         requireNonNull(params);
-        Set<Publisher<?>> publishers = new HashSet<>();
-        collectPublishers(params, publishers);
+        Set<Publisher<?>> publishers = newSetFromMap(new IdentityHashMap<>());
+        Set<Object> visited = newSetFromMap(new IdentityHashMap<>());
+        if (referencedNames == null) {
+            collectPublishers(params, publishers, visited);
+        } else {
+            referencedNames.forEach(name -> collectPublishers(params.get(name), publishers, visited));
+        }
+        if (publishers.isEmpty()) {
+            return Mono.just(params);
+        }
         List<Publisher<?>> orderedPublishers = new ArrayList<>(publishers);
         return Flux.fromIterable(orderedPublishers)
-                .flatMapSequential(p -> p instanceof Flux
-                        ? ((Flux<?>) p).collectList()
-                        : p
-                )
+                .flatMapSequential(this::resolvePublisher, concurrency)
                 .collectList()
                 .map(resolved -> {
-                    Map<Publisher<?>, Object> resolvedPublishers = new HashMap<>();
+                    Map<Object, Object> resolvedValues = new IdentityHashMap<>();
                     for (int i = 0; i < resolved.size(); ++i) {
-                        resolvedPublishers.put(orderedPublishers.get(i), resolved.get(i));
+                        resolvedValues.put(orderedPublishers.get(i), resolved.get(i).orElse(null));
                     }
-                    return resolvePublishers(params, resolvedPublishers);
+                    return resolveParams(params, referencedNames, resolvedValues);
                 });
     }
 
-    @SuppressWarnings("unchecked")
-    private static Map<String, Object> resolvePublishers(Map<String, Object> params, Map<Publisher<?>, Object> resolved) {
-        return params.entrySet().stream()
-                .map(entry -> {
-                    Object value = entry.getValue();
-                    if (value instanceof Map) {
-                        Object mapped = resolvePublishers((Map<String, Object>) value, resolved);
-                        return Map.entry(entry.getKey(), mapped);
-                    }
-                    if (value instanceof Publisher && resolved.containsKey(value)) {
-                        return Map.entry(entry.getKey(), resolved.get(value));
-                    }
-                    return entry;
-                })
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    private Mono<Optional<Object>> resolvePublisher(Publisher<?> publisher) {
+        Mono<?> resolved = publisher instanceof Mono
+                ? (Mono<?>) publisher
+                : Flux.from(publisher).collectList();
+        return resolved.<Optional<Object>>map(Optional::of)
+                .defaultIfEmpty(Optional.empty());
+    }
+
+    private Map<String, Object> resolveParams(Map<String, Object> params, Set<String> referencedNames, Map<Object, Object> resolved) {
+        if (referencedNames == null) {
+            return resolveMap(params, resolved);
+        }
+        Map<String, Object> result = null;
+        for (String name : referencedNames) {
+            Object value = params.get(name);
+            Object resolvedValue = resolveValue(value, resolved);
+            if (resolvedValue != value) {
+                if (result == null) {
+                    result = new LinkedHashMap<>(params);
+                }
+                result.put(name, resolvedValue);
+            }
+        }
+        return result != null ? result : params;
+    }
+
+    private Object resolveValue(Object value, Map<Object, Object> resolved) {
+        if (value == null) {
+            return null;
+        }
+        if (resolved.containsKey(value)) {
+            // contains resolved publishers and already visited containers
+            return resolved.get(value);
+        }
+        if (value instanceof Publisher || !isContainer(value)) {
+            return value;
+        }
+        // breaks cycles, replaced with the rebuilt container
+        resolved.put(value, value);
+        Object result;
+        if (value instanceof Map) {
+            result = resolveMap(value, resolved);
+        } else if (value instanceof Collection) {
+            Collection<Object> copy = value instanceof Set ? new LinkedHashSet<>() : new ArrayList<>();
+            result = resolveCollection((Collection<?>) value, resolved, copy);
+        } else if (value instanceof Object[]) {
+            result = resolveArray((Object[]) value, resolved);
+        } else {
+            result = resolveBean(value, resolved);
+        }
+        resolved.put(value, result);
+        return result;
     }
 
     @SuppressWarnings("unchecked")
-    private static void collectPublishers(Map<String, Object> params, Set<Publisher<?>> publishers) {
-        params.values()
-                .forEach(value -> {
-                    if (value instanceof Map) {
-                        collectPublishers((Map<String, Object>) value, publishers);
-                    } else if (value instanceof Publisher) {
-                        publishers.add((Publisher<?>) value);
-                    }
-                });
+    private <K> Map<K, Object> resolveMap(Object value, Map<Object, Object> resolved) {
+        Map<K, Object> map = (Map<K, Object>) value;
+        Map<K, Object> result = null;
+        for (Map.Entry<K, Object> entry : map.entrySet()) {
+            Object entryValue = entry.getValue();
+            Object resolvedValue = resolveValue(entryValue, resolved);
+            if (resolvedValue != entryValue) {
+                if (result == null) {
+                    result = new LinkedHashMap<>(map);
+                }
+                result.put(entry.getKey(), resolvedValue);
+            }
+        }
+        return result != null ? result : map;
+    }
+
+    private Collection<?> resolveCollection(Collection<?> collection, Map<Object, Object> resolved, Collection<Object> copy) {
+        boolean changed = false;
+        for (Object item : collection) {
+            Object resolvedItem = resolveValue(item, resolved);
+            changed |= resolvedItem != item;
+            copy.add(resolvedItem);
+        }
+        return changed ? copy : collection;
+    }
+
+    private Object[] resolveArray(Object[] array, Map<Object, Object> resolved) {
+        Object[] result = null;
+        for (int i = 0; i < array.length; ++i) {
+            Object resolvedItem = resolveValue(array[i], resolved);
+            if (resolvedItem != array[i]) {
+                if (result == null) {
+                    result = array.clone();
+                }
+                if (resolvedItem != null && !array.getClass().getComponentType().isInstance(resolvedItem)) {
+                    result = copyToObjectArray(result);
+                }
+                result[i] = resolvedItem;
+            }
+        }
+        return result != null ? result : array;
+    }
+
+    private Object[] copyToObjectArray(Object[] array) {
+        if (array.getClass() == Object[].class) {
+            return array;
+        }
+        Object[] result = (Object[]) Array.newInstance(Object.class, array.length);
+        System.arraycopy(array, 0, result, 0, array.length);
+        return result;
+    }
+
+    private Object resolveBean(Object bean, Map<Object, Object> resolved) {
+        List<BeanProperty> properties = BEAN_PROPERTIES.get(bean.getClass());
+        Map<String, Object> values = new LinkedHashMap<>(properties.size());
+        boolean changed = false;
+        for (BeanProperty property : properties) {
+            Object value = property.read(bean);
+            Object resolvedValue = resolveValue(value, resolved);
+            changed |= resolvedValue != value;
+            values.put(property.name, resolvedValue);
+        }
+        // A bean with resolved publishers is exposed to the template as a map of its properties
+        return changed ? values : bean;
+    }
+
+    private void collectPublishers(Object value, Set<Publisher<?>> publishers, Set<Object> visited) {
+        if (value == null) {
+            return;
+        }
+        if (value instanceof Publisher) {
+            publishers.add((Publisher<?>) value);
+            return;
+        }
+        if (!isContainer(value) || !visited.add(value)) {
+            return;
+        }
+        if (value instanceof Map) {
+            ((Map<?, ?>) value).values()
+                    .forEach(item -> collectPublishers(item, publishers, visited));
+        } else if (value instanceof Collection) {
+            ((Collection<?>) value)
+                    .forEach(item -> collectPublishers(item, publishers, visited));
+        } else if (value instanceof Object[]) {
+            for (Object item : (Object[]) value) {
+                collectPublishers(item, publishers, visited);
+            }
+        } else {
+            for (BeanProperty property : BEAN_PROPERTIES.get(value.getClass())) {
+                collectPublishers(property.read(value), publishers, visited);
+            }
+        }
+    }
+
+    private boolean isContainer(Object value) {
+        return value instanceof Map
+                || value instanceof Collection
+                || value instanceof Object[]
+                || (resolveBeans && !BEAN_PROPERTIES.get(value.getClass()).isEmpty());
+    }
+
+    private static final class BeanProperty {
+        private static final Set<String> SKIPPED_PACKAGE_PREFIXES = Set.of(
+                "java.", "javax.", "jdk.", "sun.", "com.sun.", "groovy.", "org.codehaus.groovy.",
+                "freemarker.", "reactor.", "org.reactivestreams.");
+        private static final Method IS_RECORD = findMethod(Class.class, "isRecord");
+        private static final Method GET_RECORD_COMPONENTS = findMethod(Class.class, "getRecordComponents");
+
+        private final String name;
+        private final Method getter;
+
+        private BeanProperty(String name, Method getter) {
+            this.name = name;
+            this.getter = getter;
+        }
+
+        Object read(Object bean) {
+            try {
+                return getter.invoke(bean);
+            } catch (Exception e) {
+                throw new IllegalStateException("Could not read property " + name + " from " + bean.getClass().getName(), e);
+            }
+        }
+
+        static List<BeanProperty> resolve(Class<?> type) {
+            if (!Modifier.isPublic(type.getModifiers()) || type.isEnum() || type.isArray() || type.isPrimitive() || isSkipped(type)) {
+                return List.of();
+            }
+            return isRecord(type)
+                    ? resolveRecordComponents(type)
+                    : resolveGetters(type);
+        }
+
+        private static boolean isSkipped(Class<?> type) {
+            String name = type.getName();
+            return SKIPPED_PACKAGE_PREFIXES.stream().anyMatch(name::startsWith);
+        }
+
+        private static List<BeanProperty> resolveGetters(Class<?> type) {
+            List<BeanProperty> properties = new ArrayList<>();
+            for (Method method : type.getMethods()) {
+                if (method.getParameterCount() != 0
+                        || Modifier.isStatic(method.getModifiers())
+                        || method.getDeclaringClass() == Object.class) {
+                    continue;
+                }
+                String methodName = method.getName();
+                if (methodName.startsWith("get") && methodName.length() > 3 && method.getReturnType() != void.class) {
+                    properties.add(new BeanProperty(decapitalize(methodName.substring(3)), method));
+                } else if (methodName.startsWith("is") && methodName.length() > 2 && method.getReturnType() == boolean.class) {
+                    properties.add(new BeanProperty(decapitalize(methodName.substring(2)), method));
+                }
+            }
+            return List.copyOf(properties);
+        }
+
+        private static List<BeanProperty> resolveRecordComponents(Class<?> type) {
+            try {
+                Object[] components = (Object[]) GET_RECORD_COMPONENTS.invoke(type);
+                List<BeanProperty> properties = new ArrayList<>(components.length);
+                for (Object component : components) {
+                    Method nameMethod = component.getClass().getMethod("getName");
+                    Method accessorMethod = component.getClass().getMethod("getAccessor");
+                    String name = (String) nameMethod.invoke(component);
+                    Method accessor = (Method) accessorMethod.invoke(component);
+                    properties.add(new BeanProperty(name, accessor));
+                }
+                return List.copyOf(properties);
+            } catch (Exception e) {
+                throw new IllegalStateException("Could not read record components of " + type.getName(), e);
+            }
+        }
+
+        private static boolean isRecord(Class<?> type) {
+            try {
+                return IS_RECORD != null && (boolean) IS_RECORD.invoke(type);
+            } catch (Exception e) {
+                return false;
+            }
+        }
+
+        private static String decapitalize(String name) {
+            if (name.length() > 1 && Character.isUpperCase(name.charAt(1)) && Character.isUpperCase(name.charAt(0))) {
+                return name;
+            }
+            return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+        }
+
+        private static Method findMethod(Class<?> type, String name) {
+            try {
+                return type.getMethod(name);
+            } catch (NoSuchMethodException e) {
+                // records are available since Java 16
+                return null;
+            }
+        }
     }
 }
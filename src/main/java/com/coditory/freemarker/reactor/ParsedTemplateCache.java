@@ -0,0 +1,151 @@
+package com.coditory.freemarker.reactor;
+
+import freemarker.core.TemplateDependencyExtractor.TemplateDependencies;
+import freemarker.core.TemplateVariablesExtractor.TemplateVariables;
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+
+import static freemarker.core.TemplateDependencyExtractor.extractDependencies;
+import static freemarker.core.TemplateVariablesExtractor.extractVariables;
+import static java.util.Objects.requireNonNull;
+
+final class ParsedTemplateCache {
+    private final Configuration configuration;
+    private final Set<String> directiveNames;
+    // guarded by itself, parsing happens outside of the lock
+    private final Map<TemplateKey, CachedTemplates> templates;
+    private final TemplateListener listener;
+
+    ParsedTemplateCache(Configuration configuration, Set<String> directiveNames, int maxSize) {
+        this(configuration, directiveNames, maxSize, null);
+    }
+
+    ParsedTemplateCache(Configuration configuration, Set<String> directiveNames, int maxSize, TemplateListener listener) {
+        this.configuration = requireNonNull(configuration);
+        this.directiveNames = Set.copyOf(directiveNames);
+        this.templates = new LruMap<>(maxSize);
+        this.listener = listener;
+    }
+
+    Template getOrParse(ResolvedTemplate resolved, boolean parse) throws IOException {
+        return getOrParse(resolved.getKey(), resolved, parse);
+    }
+
+    // Dependencies are named after the requested key, the processing context
+    // finds the current template by that name, for example 'x' resolved from 'x/_index'
+    Template getOrParse(TemplateKey requestedKey, ResolvedTemplate resolved, boolean parse) throws IOException {
+        return getOrParseEntry(requestedKey, resolved, parse).template;
+    }
+
+    TemplateDependencies getDependencies(ResolvedTemplate resolved) throws IOException {
+        ParsedTemplate parsed = getOrParseEntry(resolved.getKey(), resolved, true);
+        TemplateDependencies dependencies = parsed.dependencies;
+        if (dependencies == null) {
+            dependencies = extractDependencies(parsed.template, directiveNames);
+            parsed.dependencies = dependencies;
+        }
+        return dependencies;
+    }
+
+    TemplateVariables getVariables(ResolvedTemplate resolved) throws IOException {
+        ParsedTemplate parsed = getOrParseEntry(resolved.getKey(), resolved, true);
+        TemplateVariables variables = parsed.variables;
+        if (variables == null) {
+            variables = extractVariables(parsed.template);
+            parsed.variables = variables;
+        }
+        return variables;
+    }
+
+    private ParsedTemplate getOrParseEntry(TemplateKey key, ResolvedTemplate resolved, boolean parse) throws IOException {
+        requireNonNull(key);
+        requireNonNull(resolved);
+        String content = resolved.getContent();
+        ParsedTemplate template;
+        synchronized (templates) {
+            CachedTemplates cached = templates.get(key);
+            template = cached != null ? cached.get(parse) : null;
+        }
+        if (template != null && template.hasContent(content)) {
+            if (listener != null) {
+                listener.onCacheAccess(TemplateListener.CacheType.PARSED_TEMPLATES, true);
+            }
+            return template;
+        }
+        long start = listener != null ? System.nanoTime() : 0L;
+        ParsedTemplate parsed = new ParsedTemplate(parse(key, resolved, parse), content);
+        if (listener != null) {
+            listener.onCacheAccess(TemplateListener.CacheType.PARSED_TEMPLATES, false);
+            listener.onTemplateParsed(resolved.getKey(), System.nanoTime() - start);
+        }
+        synchronized (templates) {
+            CachedTemplates cached = templates.computeIfAbsent(key, it -> new CachedTemplates());
+            ParsedTemplate current = cached.get(parse);
+            if (current != null && current.hasContent(content)) {
+                return current;
+            }
+            // A changed content version replaces the previous one
+            cached.set(parse, parsed);
+        }
+        return parsed;
+    }
+
+    private Template parse(TemplateKey key, ResolvedTemplate resolved, boolean parse) throws IOException {
+        Template template = parse
+                ? new Template(key.getName(), resolved.getContent(), configuration)
+                : Template.getPlainTextTemplate(key.getName(), resolved.getContent(), configuration);
+        TemplateKey resolvedKey = resolved.getKey();
+        if (resolvedKey.hasLocale()) {
+            template.setLocale(resolvedKey.getLocale());
+        }
+        return template;
+    }
+
+    private static final class ParsedTemplate {
+        private final Template template;
+        private final int contentHash;
+        // Updated without synchronization, both values are equal and only the reference may differ
+        private String content;
+        private volatile TemplateDependencies dependencies;
+        private volatile TemplateVariables variables;
+
+        ParsedTemplate(Template template, String content) {
+            this.template = template;
+            this.content = content;
+            this.contentHash = content.hashCode();
+        }
+
+        boolean hasContent(String other) {
+            // Resolved templates are cached, so the same content instance is usually passed
+            if (content == other) {
+                return true;
+            }
+            if (contentHash != other.hashCode() || !content.equals(other)) {
+                return false;
+            }
+            content = other;
+            return true;
+        }
+    }
+
+    private static final class CachedTemplates {
+        private ParsedTemplate parsed;
+        private ParsedTemplate plain;
+
+        ParsedTemplate get(boolean parse) {
+            return parse ? parsed : plain;
+        }
+
+        void set(boolean parse, ParsedTemplate template) {
+            if (parse) {
+                parsed = template;
+            } else {
+                plain = template;
+            }
+        }
+    }
+}
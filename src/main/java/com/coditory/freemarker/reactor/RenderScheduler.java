@@ -0,0 +1,53 @@
+package com.coditory.freemarker.reactor;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Objects.requireNonNull;
+
+final class RenderScheduler {
+    // each new render time contributes 1/8 to the smoothed render time
+    private static final int SMOOTHING_SHIFT = 3;
+    private final Scheduler scheduler;
+    private final long thresholdNanos;
+    private final Map<TemplateKey, Long> renderTimes = new ConcurrentHashMap<>();
+
+    RenderScheduler(Scheduler scheduler, Duration threshold) {
+        this.scheduler = requireNonNull(scheduler);
+        requireNonNull(threshold);
+        if (threshold.isNegative()) {
+            throw new IllegalArgumentException("Expected non-negative render threshold. Got: " + threshold);
+        }
+        this.thresholdNanos = threshold.toNanos();
+    }
+
+    Scheduler getScheduler() {
+        return scheduler;
+    }
+
+    boolean isAdaptive() {
+        return thresholdNanos > 0;
+    }
+
+    <T> Mono<T> schedule(TemplateKey key, Mono<T> render) {
+        return shouldOffload(key)
+                ? render.subscribeOn(scheduler)
+                : render;
+    }
+
+    void recordRenderTime(TemplateKey key, long renderNanos) {
+        renderTimes.merge(key, renderNanos, (previous, current) -> previous + ((current - previous) >> SMOOTHING_SHIFT));
+    }
+
+    private boolean shouldOffload(TemplateKey key) {
+        if (!isAdaptive()) {
+            return true;
+        }
+        Long renderTime = renderTimes.get(key);
+        return renderTime != null && renderTime >= thresholdNanos;
+    }
+}
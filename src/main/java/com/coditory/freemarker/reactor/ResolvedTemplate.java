@@ -4,7 +4,7 @@ import java.util.Objects;
 
 import static java.util.Objects.requireNonNull;
 
-final class ResolvedTemplate {
+public final class ResolvedTemplate {
     private final TemplateKey key;
     private final String content;
 
@@ -0,0 +1,73 @@
+package com.coditory.freemarker.reactor;
+
+import freemarker.core.TemplateDependencyExtractor.TemplateDependencies;
+import freemarker.core.TemplateDependencyExtractor.TemplateDependency;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static java.util.Objects.requireNonNull;
+
+final class StaticDependenciesResolver {
+    private final ParsedTemplateCache parsedTemplates;
+
+    StaticDependenciesResolver(ParsedTemplateCache parsedTemplates) {
+        this.parsedTemplates = requireNonNull(parsedTemplates);
+    }
+
+    Mono<Void> resolveDependencies(
+            ResolvedTemplate template,
+            TemplateResolutionContext context,
+            TemplateDependencyResolver resolver
+    ) {
+        requireNonNull(template);
+        requireNonNull(context);
+        requireNonNull(resolver);
+        TemplateDependencies dependencies;
+        try {
+            dependencies = parsedTemplates.getDependencies(template);
+        } catch (Exception e) {
+            // template errors are reported during processing
+            return Mono.empty();
+        }
+        if (dependencies.hasDynamicDependencies()) {
+            context.markDynamicDependencies();
+        }
+        TemplateKey templateKey = template.getKey();
+        return Flux.fromIterable(dependencies.getDependencies())
+                .flatMap(dependency -> resolveDependency(templateKey, dependency, context, resolver))
+                .then();
+    }
+
+    private Mono<Void> resolveDependency(
+            TemplateKey templateKey,
+            TemplateDependency dependency,
+            TemplateResolutionContext context,
+            TemplateDependencyResolver resolver
+    ) {
+        TemplateKey dependencyKey = toDependencyKey(templateKey, dependency.getName());
+        if (dependencyKey == null || !context.registerDependency(dependencyKey)) {
+            return Mono.empty();
+        }
+        return resolver.resolveDependency(dependencyKey)
+                .doOnNext(resolved -> context.addResolvedDependency(dependencyKey, resolved))
+                .switchIfEmpty(Mono.defer(() -> {
+                    context.addMissingDependency(dependencyKey);
+                    return Mono.empty();
+                }))
+                .filter(it -> dependency.isParsed())
+                .flatMap(resolved -> resolveDependencies(resolved, context, resolver))
+                // dependency stays unresolved and the error is reported during processing
+                .onErrorResume(e -> Mono.empty());
+    }
+
+    private TemplateKey toDependencyKey(TemplateKey templateKey, String dependencyName) {
+        try {
+            TemplateKey dependencyKey = templateKey.dependencyKey(dependencyName);
+            return dependencyKey.isAccessibleFrom(templateKey)
+                    ? dependencyKey
+                    : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
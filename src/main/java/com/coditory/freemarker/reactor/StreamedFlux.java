@@ -0,0 +1,75 @@
+package com.coditory.freemarker.reactor;
+
+import freemarker.core.Environment;
+import freemarker.template.TemplateCollectionModel;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
+import freemarker.template.TemplateModelIterator;
+import reactor.core.publisher.Flux;
+import reactor.util.concurrent.Queues;
+
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static java.util.Objects.requireNonNull;
+
+public final class StreamedFlux implements TemplateCollectionModel {
+    static final String UNSUPPORTED_MESSAGE = "StreamedFlux parameters can be rendered only with Template.processToFlux";
+
+    public static StreamedFlux of(Flux<?> flux) {
+        return of(flux, Queues.SMALL_BUFFER_SIZE);
+    }
+
+    public static StreamedFlux of(Flux<?> flux, int prefetch) {
+        return new StreamedFlux(flux, prefetch);
+    }
+
+    private final Flux<?> flux;
+    private final int prefetch;
+    private final AtomicBoolean consumed = new AtomicBoolean();
+
+    private StreamedFlux(Flux<?> flux, int prefetch) {
+        if (prefetch < 1) {
+            throw new IllegalArgumentException("Expected positive prefetch. Got: " + prefetch);
+        }
+        this.flux = requireNonNull(flux);
+        this.prefetch = prefetch;
+    }
+
+    @Override
+    public TemplateModelIterator iterator() throws TemplateModelException {
+        TemplateProcessingContext context = TemplateProcessingContext.findInThreadLocal();
+        if (context != null && !context.isStreaming()) {
+            throw new TemplateModelException(UNSUPPORTED_MESSAGE);
+        }
+        if (!consumed.compareAndSet(false, true)) {
+            throw new TemplateModelException("Streamed flux can be listed only once");
+        }
+        Stream<?> stream = flux.toStream(prefetch);
+        if (context != null) {
+            context.onClose(stream::close);
+        }
+        return new StreamIterator(stream.iterator(), Environment.getCurrentEnvironment());
+    }
+
+    private static final class StreamIterator implements TemplateModelIterator {
+        private final Iterator<?> iterator;
+        private final Environment environment;
+
+        StreamIterator(Iterator<?> iterator, Environment environment) {
+            this.iterator = iterator;
+            this.environment = environment;
+        }
+
+        @Override
+        public TemplateModel next() throws TemplateModelException {
+            return environment.getObjectWrapper().wrap(iterator.next());
+        }
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+    }
+}
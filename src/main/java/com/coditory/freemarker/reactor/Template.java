@@ -2,30 +2,58 @@ package com.coditory.freemarker.reactor;
 
 import freemarker.core.InvalidReferenceException;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
+import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
-import static com.coditory.freemarker.reactor.ParametersResolver.resolveParams;
 import static java.util.Objects.requireNonNull;
 
 public final class Template {
+    private static final int CHUNK_SIZE = 8 * 1024;
+    private static final int MAX_REUSED_WRITER_CAPACITY = 1024 * 1024;
+    private static final ThreadLocal<StringWriter> REUSED_WRITER = ThreadLocal.withInitial(StringWriter::new);
+    // channel writes consume a chunk before the next one is encoded, so one buffer per thread is enough
+    private static final ThreadLocal<ByteBuffer> REUSED_CHUNK = ThreadLocal.withInitial(() -> ByteBuffer.allocate(CHUNK_SIZE));
     private final TemplateKey key;
     private final freemarker.template.Template template;
     private final TemplateDependencyResolver loader;
     private final TemplateResolutionContext context;
+    private final Set<String> referencedVariables;
+    private final ParametersResolver parametersResolver;
+    private final TemplateListener listener;
+    private final RenderScheduler renderScheduler;
 
     Template(
             TemplateKey key,
             freemarker.template.Template template,
             TemplateDependencyResolver loader,
-            TemplateResolutionContext context
+            TemplateResolutionContext context,
+            Set<String> referencedVariables,
+            ParametersResolver parametersResolver,
+            TemplateListener listener,
+            RenderScheduler renderScheduler
     ) {
         this.key = requireNonNull(key);
         this.template = requireNonNull(template);
         this.loader = requireNonNull(loader);
         this.context = requireNonNull(context);
+        this.referencedVariables = referencedVariables;
+        this.parametersResolver = requireNonNull(parametersResolver);
+        this.listener = listener;
+        this.renderScheduler = renderScheduler;
     }
 
     public Mono<String> process() {
@@ -34,38 +62,217 @@ public final class Template {
 
     public Mono<String> process(Map<String, Object> params) {
         requireNonNull(params);
-        return resolveParams(params)
-                .flatMap(resolvedParams -> resolveDependenciesAndProcess(context, resolvedParams));
+        validateNotStreamed(params);
+        return parametersResolver.resolveParams(params, referencedVariables)
+                .flatMap(resolvedParams -> resolveDependenciesAndProcess(context, resolvedParams, startRenderStats()));
     }
 
-    private Mono<String> process(TemplateResolutionContext context, Map<String, Object> params) {
-        return Mono.fromCallable(() -> processSync(context, params))
-                .filter(it -> !context.hasUnresolvedDependencies())
-                .switchIfEmpty(resolveDependenciesAndProcess(context, params));
+    public Flux<ByteBuffer> processToFlux(Map<String, Object> params, Charset charset) {
+        requireNonNull(params);
+        requireNonNull(charset);
+        return parametersResolver.resolveParams(params, referencedVariables)
+                .flatMapMany(resolvedParams -> Flux.defer(() -> resolveDependencies(context))
+                        .thenMany(stream(context, resolvedParams, charset, startRenderStats())));
+    }
+
+    public Flux<String> processAll(Flux<Map<String, Object>> params) {
+        return processAll(params, Schedulers.DEFAULT_POOL_SIZE, true);
+    }
+
+    public Flux<String> processAll(Flux<Map<String, Object>> params, int parallelism, boolean ordered) {
+        requireNonNull(params);
+        validateParallelism(parallelism);
+        Function<Map<String, Object>, Mono<String>> render = it -> Mono.fromRunnable(() -> validateNotStreamed(it))
+                .then(parametersResolver.resolveParams(it, referencedVariables))
+                .flatMap(resolvedParams -> resolveDependenciesAndProcessInBulk(resolvedParams, startRenderStats()));
+        return ordered
+                ? params.flatMapSequential(render, parallelism)
+                : params.flatMap(render, parallelism);
+    }
+
+    public Mono<Void> processAll(Flux<Map<String, Object>> params, OutputChannelFactory output, Charset charset, int parallelism) {
+        requireNonNull(params);
+        requireNonNull(output);
+        requireNonNull(charset);
+        validateParallelism(parallelism);
+        return params
+                .flatMap(it -> Mono.fromRunnable(() -> validateNotStreamed(it))
+                        .then(parametersResolver.resolveParams(it, referencedVariables))
+                        .flatMap(resolvedParams -> {
+                            RenderStats stats = startRenderStats();
+                            return Flux.defer(() -> resolveDependencies(context))
+                                    // channel writes block, so the render scheduler, usually a non-blocking one, is not used
+                                    .then(Mono.fromRunnable(() -> processToChannel(it, resolvedParams, output, charset, stats))
+                                            .subscribeOn(Schedulers.boundedElastic()));
+                        }), parallelism)
+                .then();
+    }
+
+    private Scheduler bulkRenderScheduler() {
+        return renderScheduler != null
+                ? renderScheduler.getScheduler()
+                : Schedulers.parallel();
+    }
+
+    private void validateNotStreamed(Map<String, Object> params) {
+        // Multi pass and non-blocking renders cannot consume a flux while rendering
+        for (Object value : params.values()) {
+            if (value instanceof StreamedFlux) {
+                throw new IllegalArgumentException(StreamedFlux.UNSUPPORTED_MESSAGE);
+            }
+        }
+    }
+
+    private void validateParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Expected positive parallelism. Got: " + parallelism);
+        }
+    }
+
+    private Mono<String> resolveDependenciesAndProcessInBulk(Map<String, Object> params, RenderStats stats) {
+        return Flux.defer(() -> resolveDependencies(context))
+                .then(Mono.fromCallable(() -> processWithReusedWriter(params, stats))
+                        .subscribeOn(bulkRenderScheduler()))
+                .switchIfEmpty(Mono.defer(() -> resolveDependenciesAndProcessInBulk(params, stats)));
+    }
+
+    private String processWithReusedWriter(Map<String, Object> params, RenderStats stats) {
+        StringWriter writer = REUSED_WRITER.get();
+        try {
+            if (!processSync(context, params, writer, false, false, stats)) {
+                return null;
+            }
+            String output = writer.toString();
+            reportProcessed(stats, output.length());
+            return output;
+        } finally {
+            StringBuffer buffer = writer.getBuffer();
+            if (buffer.capacity() > MAX_REUSED_WRITER_CAPACITY) {
+                REUSED_WRITER.remove();
+            } else {
+                buffer.setLength(0);
+            }
+        }
+    }
+
+    private void processToChannel(
+            Map<String, Object> params,
+            Map<String, Object> resolvedParams,
+            OutputChannelFactory output,
+            Charset charset,
+            RenderStats stats
+    ) {
+        try (WritableByteChannel channel = output.open(params);
+             ByteBufferChunkWriter writer = new ByteBufferChunkWriter(charset, REUSED_CHUNK.get(), chunk -> writeFully(channel, chunk))) {
+            verifyProcessed(processSync(context, resolvedParams, writer, false, true, stats));
+            reportProcessed(stats, writer.getWrittenLength());
+        } catch (IOException e) {
+            throw new TemplateResolutionException("Could not write processed template " + key, e);
+        }
+    }
+
+    private static void writeFully(WritableByteChannel channel, ByteBuffer chunk) throws IOException {
+        while (chunk.hasRemaining()) {
+            channel.write(chunk);
+        }
     }
 
-    private String processSync(TemplateResolutionContext context, Map<String, Object> params) {
+    private void verifyProcessed(boolean processed) {
+        if (!processed) {
+            throw new TemplateResolutionException("Could not resolve template " + key
+                    + ". Template dependencies were skipped while rendering");
+        }
+    }
+
+    private RenderStats startRenderStats() {
+        // render statistics are collected only for listeners
+        return listener != null ? new RenderStats() : null;
+    }
+
+    private void reportProcessed(RenderStats stats, long outputLength) {
+        if (stats != null) {
+            listener.onTemplateProcessed(key, stats.passes, outputLength, System.nanoTime() - stats.start);
+        }
+    }
+
+    private Mono<String> process(TemplateResolutionContext context, Map<String, Object> params, RenderStats stats) {
+        Mono<String> render = Mono.fromCallable(() -> processSync(context, params, stats));
+        if (renderScheduler != null) {
+            render = renderScheduler.schedule(key, render);
+        }
+        // an empty render means this pass skipped a dependency that was not resolved yet
+        Mono<String> result = render;
+        if (stats != null) {
+            result = result.doOnNext(output -> reportProcessed(stats, output.length()));
+        }
+        return result.switchIfEmpty(resolveDependenciesAndProcess(context, params, stats));
+    }
+
+    private String processSync(TemplateResolutionContext context, Map<String, Object> params, RenderStats stats) {
         StringWriter writer = new StringWriter();
+        return processSync(context, params, writer, false, false, stats)
+                ? writer.toString()
+                : null;
+    }
+
+    private boolean processSync(
+            TemplateResolutionContext context,
+            Map<String, Object> params,
+            Writer writer,
+            boolean streaming,
+            boolean blocking,
+            RenderStats stats
+    ) {
+        if (stats != null) {
+            stats.passes++;
+        }
+        // a pass that may block resolves dependencies when it reaches them, instead of skipping them
+        Consumer<TemplateKey> blockingResolver = blocking
+                ? dependency -> resolveDependency(context, dependency).block()
+                : null;
+        TemplateProcessingContext previous = TemplateProcessingContext.setupInThreadLocal(context, streaming, blockingResolver);
+        TemplateProcessingContext processingContext = TemplateProcessingContext.getFromThreadLocal();
+        boolean measureRenderTime = renderScheduler != null && renderScheduler.isAdaptive();
+        long start = measureRenderTime ? System.nanoTime() : 0L;
         try {
-            TemplateResolutionContext.setupInThreadLocal(context);
             template.process(params, writer);
-            return writer.toString();
+            if (measureRenderTime) {
+                renderScheduler.recordRenderTime(key, System.nanoTime() - start);
+            }
+            return !processingContext.hasSkippedDependencies();
         } catch (InvalidReferenceException e) {
-            if (!context.hasUnresolvedDependencies()) {
+            // the context is shared with concurrent renders, so only dependencies skipped by this pass count
+            if (!processingContext.hasSkippedDependencies()) {
                 throw new TemplateResolutionException("Could not resolve template " + key, e);
             }
-            return "";
+            return false;
         } catch (Exception e) {
             throw new TemplateResolutionException("Could not resolve template " + key, e);
         } finally {
-            TemplateResolutionContext.removeFromThreadLocal();
+            TemplateProcessingContext.restoreInThreadLocal(previous);
         }
     }
 
-    private Mono<String> resolveDependenciesAndProcess(TemplateResolutionContext context, Map<String, Object> params) {
+    private Flux<ByteBuffer> stream(TemplateResolutionContext context, Map<String, Object> params, Charset charset, RenderStats stats) {
+        return Flux.<ByteBuffer>create(sink -> {
+            SinkChunkConsumer consumer = new SinkChunkConsumer(sink);
+            try (ByteBufferChunkWriter writer = new ByteBufferChunkWriter(charset, CHUNK_SIZE, consumer)) {
+                verifyProcessed(processSync(context, params, writer, true, true, stats));
+                reportProcessed(stats, writer.getWrittenLength());
+            } catch (Exception e) {
+                if (!sink.isCancelled()) {
+                    sink.error(e);
+                }
+                return;
+            }
+            sink.complete();
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private Mono<String> resolveDependenciesAndProcess(TemplateResolutionContext context, Map<String, Object> params, RenderStats stats) {
         return Flux.defer(() -> resolveDependencies(context))
                 .collectList()
-                .flatMap(it -> process(context, params));
+                .flatMap(it -> process(context, params, stats));
     }
 
     private Flux<TemplateKey> resolveDependencies(TemplateResolutionContext context) {
@@ -84,4 +291,49 @@ public final class Template {
                 .onErrorMap(it -> new TemplateResolutionException(
                         "Could not resolve template " + key + ". Could not resolve template dependency " + templateKey, it));
     }
+
+    private static final class SinkChunkConsumer implements ByteBufferChunkWriter.ChunkConsumer {
+        private final FluxSink<ByteBuffer> sink;
+        private final Object demand = new Object();
+
+        SinkChunkConsumer(FluxSink<ByteBuffer> sink) {
+            this.sink = sink;
+            sink.onRequest(n -> signal());
+            sink.onCancel(this::signal);
+        }
+
+        @Override
+        public void accept(ByteBuffer chunk) throws IOException {
+            synchronized (demand) {
+                while (sink.requestedFromDownstream() == 0 && !sink.isCancelled()) {
+                    try {
+                        demand.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while waiting for demand");
+                    }
+                }
+            }
+            if (sink.isCancelled()) {
+                throw new InterruptedIOException("Template output stream was cancelled");
+            }
+            sink.next(chunk);
+        }
+
+        private void signal() {
+            synchronized (demand) {
+                demand.notifyAll();
+            }
+        }
+    }
+
+    private static final class RenderStats {
+        private final long start = System.nanoTime();
+        private int passes;
+    }
+
+    @FunctionalInterface
+    public interface OutputChannelFactory {
+        WritableByteChannel open(Map<String, Object> params) throws IOException;
+    }
 }
@@ -4,4 +4,6 @@ final class TemplateConstants {
     static final String SEPARATOR = "/";
     static final String INDEX_FILE = "_index";
     static final String PROTECTED_TEMPLATE_PREFIX = "_";
+    static final String INCLUDE_DIRECTIVE = "include";
+    static final String IMPORT_DIRECTIVE = "import";
 }
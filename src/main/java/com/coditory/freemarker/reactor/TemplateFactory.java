@@ -1,14 +1,29 @@
 package com.coditory.freemarker.reactor;
 
+import freemarker.core.TemplateVariablesExtractor.TemplateVariables;
 import freemarker.template.Configuration;
 import freemarker.template.Version;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+import static com.coditory.freemarker.reactor.TemplateConstants.INDEX_FILE;
+import static com.coditory.freemarker.reactor.TemplateConstants.SEPARATOR;
 import static java.util.Objects.requireNonNull;
 
-public final class TemplateFactory {
+public final class TemplateFactory implements Closeable {
     public static TemplateFactoryBuilder builder(Version version) {
         return new TemplateFactoryBuilder(version);
     }
@@ -22,18 +37,42 @@ public final class TemplateFactory {
                 .build();
     }
 
-    private final Configuration configuration;
     private final TemplateResolver loader;
+    private final ParsedTemplateCache parsedTemplates;
+    private final StaticDependenciesResolver staticDependenciesResolver;
+    private final Cache<TemplateRequest, Template> templates;
+    private final ParametersResolver parametersResolver;
     private final Locale defaultLocale;
+    private final TemplateListener listener;
+    private final RenderScheduler renderScheduler;
+    private final Disposable changesSubscription;
 
     TemplateFactory(
-            Configuration configuration,
             TemplateResolver loader,
-            Locale defaultLocale
+            ParsedTemplateCache parsedTemplates,
+            Cache<TemplateRequest, Template> templates,
+            ParametersResolver parametersResolver,
+            Locale defaultLocale,
+            TemplateListener listener,
+            RenderScheduler renderScheduler
     ) {
-        this.configuration = requireNonNull(configuration);
         this.loader = requireNonNull(loader);
+        this.parsedTemplates = requireNonNull(parsedTemplates);
+        this.staticDependenciesResolver = new StaticDependenciesResolver(parsedTemplates);
+        this.templates = requireNonNull(templates);
+        this.parametersResolver = requireNonNull(parametersResolver);
         this.defaultLocale = defaultLocale;
+        this.listener = listener;
+        this.renderScheduler = renderScheduler;
+        // Compiled templates embed resolved dependencies, so any change invalidates all of them
+        this.changesSubscription = loader.changes()
+                .subscribe(key -> templates.invalidateAll());
+    }
+
+    // Stops listening to template changes, loaders are closed by their owners
+    @Override
+    public void close() {
+        changesSubscription.dispose();
     }
 
     public Mono<Template> createTemplate(String name) {
@@ -51,25 +90,123 @@ public final class TemplateFactory {
 
     public Mono<Template> createTemplate(TemplateRequest request) {
         requireNonNull(request);
+        return templates.getOrLoad(request, this::createTemplateWithoutCache);
+    }
+
+    public Mono<WarmUpReport> warmUp() {
+        return loader.listTemplates()
+                .<TemplateRequest>handle((key, sink) -> {
+                    TemplateRequest request = toWarmUpRequest(key);
+                    if (request != null) {
+                        sink.next(request);
+                    }
+                })
+                .collectList()
+                .flatMap(this::warmUp);
+    }
+
+    public Mono<WarmUpReport> warmUp(Collection<TemplateRequest> requests) {
+        requireNonNull(requests);
+        Set<TemplateRequest> uniqueRequests = new LinkedHashSet<>(requests);
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            Map<TemplateRequest, Throwable> failures = new ConcurrentHashMap<>();
+            return Flux.fromIterable(uniqueRequests)
+                    .flatMap(request -> createTemplate(request)
+                            .subscribeOn(Schedulers.parallel())
+                            .then()
+                            .onErrorResume(e -> {
+                                failures.put(request, e);
+                                return Mono.empty();
+                            }), Schedulers.DEFAULT_POOL_SIZE)
+                    .then(Mono.fromCallable(() -> new WarmUpReport(
+                            uniqueRequests.size(), failures, Duration.ofNanos(System.nanoTime() - start))));
+        });
+    }
+
+    private TemplateRequest toWarmUpRequest(TemplateKey key) {
+        String name = key.getName();
+        if (name.equals(INDEX_FILE)) {
+            return null;
+        }
+        if (name.endsWith(SEPARATOR + INDEX_FILE)) {
+            name = key.getTemplateBaseName();
+        } else if (key.isScoped()) {
+            // scoped templates are warmed up as dependencies of other templates
+            return null;
+        }
+        // Files in subdirectories are listed with and without a module,
+        // only the form that is resolved with the configured common modules is warmed up
+        if (key.hasModule() ? !loader.isCommonModule(key.getModule()) : loader.isCommonModule(firstSegment(name))) {
+            return null;
+        }
+        return TemplateRequest.builder(name)
+                .setModules(key.hasModule() ? List.of(key.getModule()) : List.of())
+                .setLocale(key.hasLocale() ? key.getLocale() : defaultLocale)
+                .build();
+    }
+
+    private static String firstSegment(String name) {
+        int separatorIndex = name.indexOf(SEPARATOR);
+        return separatorIndex > 0 ? name.substring(0, separatorIndex) : null;
+    }
+
+    private Mono<Template> createTemplateWithoutCache(TemplateRequest request) {
+        return listener != null
+                ? Mono.defer(() -> createTemplateWithoutCache(request, System.nanoTime()))
+                : createTemplateWithoutCache(request, 0L);
+    }
+
+    private Mono<Template> createTemplateWithoutCache(TemplateRequest request, long start) {
         return loader.resolveTemplate(request)
-                .map(resolved -> createTemplate(request, resolved))
+                .flatMap(resolved -> createTemplate(request, resolved, start))
                 .switchIfEmpty(Mono.defer(() ->
                         Mono.error(new TemplateCreationException("Could not resolve template: " + request))
                 ));
     }
 
-    private Template createTemplate(TemplateRequest request, ResolvedTemplate resolved) {
+    private Mono<Template> createTemplate(TemplateRequest request, ResolvedTemplate resolved, long start) {
         TemplateKey key = resolved.getKey();
+        freemarker.template.Template template;
         try {
-            freemarker.template.Template template = new freemarker.template.Template(key.getName(), resolved.getContent(), configuration);
-            if (key.hasLocale()) {
-                template.setLocale(key.getLocale());
-            }
-            TemplateDependencyResolver dependencyLoader = new TemplateDependencyResolver(request, loader);
-            TemplateResolutionContext context = new TemplateResolutionContext(key, resolved);
-            return new Template(key, template, dependencyLoader, context);
+            template = parsedTemplates.getOrParse(resolved, true);
         } catch (Exception e) {
-            throw new TemplateCreationException("Could not create template " + key, e);
+            return Mono.error(new TemplateCreationException("Could not create template " + key, e));
+        }
+        TemplateDependencyResolver dependencyLoader = new TemplateDependencyResolver(request, loader);
+        TemplateResolutionContext context = new TemplateResolutionContext(key, resolved);
+        return staticDependenciesResolver.resolveDependencies(resolved, context, dependencyLoader)
+                .then(Mono.fromCallable(() -> {
+                    Template created = new Template(
+                            key, template, dependencyLoader, context, referencedVariables(context),
+                            parametersResolver, listener, renderScheduler);
+                    if (listener != null) {
+                        // the main template is registered as a resolved dependency
+                        int dependencies = context.getResolvedDependencies().size() - 1;
+                        listener.onTemplateCreated(key, dependencies, System.nanoTime() - start);
+                    }
+                    return created;
+                }));
+    }
+
+    // Returns null when variables cannot be determined statically
+    private Set<String> referencedVariables(TemplateResolutionContext context) {
+        if (context.hasDynamicDependencies() || context.hasUnresolvedDependencies()) {
+            return null;
+        }
+        Set<String> names = new HashSet<>();
+        for (ResolvedTemplate resolved : context.getResolvedDependencies()) {
+            TemplateVariables variables;
+            try {
+                variables = parsedTemplates.getVariables(resolved);
+            } catch (Exception e) {
+                return null;
+            }
+            if (variables.hasDynamicVariables()) {
+                return null;
+            }
+            names.addAll(variables.getNames());
         }
+        return Set.copyOf(names);
     }
 }
@@ -18,13 +18,19 @@ import freemarker.template.TemplateHashModelEx;
 import freemarker.template.TemplateModel;
 import freemarker.template.TemplateModelException;
 import freemarker.template.Version;
+import reactor.core.scheduler.Scheduler;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.TimeZone;
 
+import static com.coditory.freemarker.reactor.TemplateConstants.IMPORT_DIRECTIVE;
+import static com.coditory.freemarker.reactor.TemplateConstants.INCLUDE_DIRECTIVE;
 import static java.util.Objects.requireNonNull;
 
 public final class TemplateFactoryBuilder {
@@ -32,7 +38,14 @@ public final class TemplateFactoryBuilder {
     private Locale defaultLocale;
     private List<String> commonModules = List.of();
     private TemplateLoader templateLoader = new CachedTemplateLoader(new ClasspathTemplateLoader("templates"));
-    private Cache<TemplateKey, ResolvedTemplate> templateResolverCache = Cache.concurrentMapCache();
+    private Cache<TemplateRequest, ResolvedTemplate> templateResolverCache;
+    private int parsedTemplateCacheSize = 1000;
+    private int compiledTemplateCacheSize = 0;
+    private int parametersResolutionConcurrency = ParametersResolver.DEFAULT_CONCURRENCY;
+    private boolean resolveBeanParameters = false;
+    private final List<TemplateListener> listeners = new ArrayList<>();
+    private RenderScheduler renderScheduler;
+    private int templateProbeParallelism = TemplateResolver.DEFAULT_PROBE_PARALLELISM;
 
     TemplateFactoryBuilder(Version version) {
         this.configuration = new Configuration(version);
@@ -253,23 +266,118 @@ public final class TemplateFactoryBuilder {
         return this;
     }
 
+    // Kept for source compatibility, requests with more than one module are not cached by a key based cache
+    @Deprecated
     @SuppressWarnings("unchecked")
     public TemplateFactoryBuilder setTemplateCache(Cache<TemplateKey, ?> cache) {
         requireNonNull(cache);
-        this.templateResolverCache = (Cache<TemplateKey, ResolvedTemplate>) cache;
+        this.templateResolverCache = new TemplateKeyResolutionCache((Cache<TemplateKey, ResolvedTemplate>) cache);
+        return this;
+    }
+
+    public TemplateFactoryBuilder setTemplateResolutionCache(Cache<TemplateRequest, ResolvedTemplate> cache) {
+        this.templateResolverCache = requireNonNull(cache);
+        return this;
+    }
+
+    public TemplateFactoryBuilder setParsedTemplateCacheSize(int parsedTemplateCacheSize) {
+        if (parsedTemplateCacheSize < 0) {
+            throw new IllegalArgumentException("Expected non-negative parsed template cache size. Got: " + parsedTemplateCacheSize);
+        }
+        this.parsedTemplateCacheSize = parsedTemplateCacheSize;
+        return this;
+    }
+
+    public TemplateFactoryBuilder setCompiledTemplateCacheSize(int compiledTemplateCacheSize) {
+        if (compiledTemplateCacheSize < 0) {
+            throw new IllegalArgumentException("Expected non-negative compiled template cache size. Got: " + compiledTemplateCacheSize);
+        }
+        this.compiledTemplateCacheSize = compiledTemplateCacheSize;
+        return this;
+    }
+
+    public TemplateFactoryBuilder setParametersResolutionConcurrency(int parametersResolutionConcurrency) {
+        if (parametersResolutionConcurrency < 1) {
+            throw new IllegalArgumentException("Expected positive parameters resolution concurrency. Got: " + parametersResolutionConcurrency);
+        }
+        this.parametersResolutionConcurrency = parametersResolutionConcurrency;
+        return this;
+    }
+
+    public TemplateFactoryBuilder setTemplateProbeParallelism(int templateProbeParallelism) {
+        if (templateProbeParallelism < 1) {
+            throw new IllegalArgumentException("Expected positive template probe parallelism. Got: " + templateProbeParallelism);
+        }
+        this.templateProbeParallelism = templateProbeParallelism;
+        return this;
+    }
+
+    public TemplateFactoryBuilder setResolveBeanParameters(boolean resolveBeanParameters) {
+        this.resolveBeanParameters = resolveBeanParameters;
+        return this;
+    }
+
+    public TemplateFactoryBuilder addTemplateListener(TemplateListener listener) {
+        this.listeners.add(requireNonNull(listener));
+        return this;
+    }
+
+    public TemplateFactoryBuilder setRenderScheduler(Scheduler renderScheduler) {
+        return setRenderScheduler(renderScheduler, Duration.ZERO);
+    }
+
+    public TemplateFactoryBuilder setRenderScheduler(Scheduler renderScheduler, Duration inlineRenderThreshold) {
+        this.renderScheduler = new RenderScheduler(renderScheduler, inlineRenderThreshold);
         return this;
     }
 
     public TemplateFactoryBuilder removeCache() {
         this.templateResolverCache = Cache.alwaysEmpty();
+        this.compiledTemplateCacheSize = 0;
         return this;
     }
 
     public TemplateFactory build() {
-        configuration.setSharedVariable("include", new TemplateDirectiveAdapter(new IncludeDirective()));
-        configuration.setSharedVariable("import", new TemplateDirectiveAdapter(new ImportDirective()));
+        TemplateListener listener = buildListener();
+        ParsedTemplateCache parsedTemplates = new ParsedTemplateCache(
+                configuration, Set.of(INCLUDE_DIRECTIVE, IMPORT_DIRECTIVE), parsedTemplateCacheSize, listener);
+        configuration.setSharedVariable(INCLUDE_DIRECTIVE, new TemplateDirectiveAdapter(new IncludeDirective(parsedTemplates)));
+        configuration.setSharedVariable(IMPORT_DIRECTIVE, new TemplateDirectiveAdapter(new ImportDirective(parsedTemplates)));
         configuration.setTemplateLoader(new FreeMarkerTemplateLoaderAdapter());
-        TemplateResolver loader = new TemplateResolver(templateLoader, commonModules, templateResolverCache);
-        return new TemplateFactory(configuration, loader, defaultLocale);
+        TemplateResolver loader = new TemplateResolver(
+                templateLoader, commonModules, buildTemplateResolverCache(), listener, templateProbeParallelism);
+        Cache<TemplateRequest, Template> templates = buildCompiledTemplateCache(listener);
+        ParametersResolver parametersResolver = new ParametersResolver(parametersResolutionConcurrency, resolveBeanParameters);
+        return new TemplateFactory(loader, parsedTemplates, templates, parametersResolver, defaultLocale, listener, renderScheduler);
+    }
+
+    private TemplateListener buildListener() {
+        // without listeners instrumentation is skipped entirely
+        if (listeners.isEmpty()) {
+            return null;
+        }
+        return listeners.size() == 1
+                ? listeners.get(0)
+                : new CompositeTemplateListener(listeners);
+    }
+
+    private Cache<TemplateRequest, ResolvedTemplate> buildTemplateResolverCache() {
+        if (templateResolverCache != null) {
+            return templateResolverCache;
+        }
+        // resolution results are memoized until a change is reported, so an uncached loader would never see edits
+        return templateLoader instanceof CachedTemplateLoader
+                ? Cache.concurrentMapCache()
+                : Cache.alwaysEmpty();
+    }
+
+    private Cache<TemplateRequest, Template> buildCompiledTemplateCache(TemplateListener listener) {
+        if (compiledTemplateCacheSize == 0) {
+            return Cache.alwaysEmpty();
+        }
+        Cache<TemplateRequest, Template> cache = Cache.lruCache(compiledTemplateCacheSize);
+        return listener != null
+                ? new ObservedCache<>(cache, TemplateListener.CacheType.COMPILED_TEMPLATES, listener)
+                : cache;
     }
 }
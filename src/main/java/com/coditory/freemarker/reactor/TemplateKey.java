@@ -1,7 +1,9 @@
 package com.coditory.freemarker.reactor;
 
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.coditory.freemarker.reactor.TemplateConstants.SEPARATOR;
 import static com.coditory.freemarker.reactor.TemplateNames.resolveTemplateBaseName;
@@ -9,34 +11,42 @@ import static com.coditory.freemarker.reactor.TemplateNames.resolveTemplateDepen
 import static com.coditory.freemarker.reactor.TemplateNames.resolveTemplateName;
 
 public final class TemplateKey {
+    private static final int MAX_CACHED_DERIVED_KEYS = 64;
     private final String module;
     private final String name;
     private final Locale locale;
+    private final int hash;
+    private final boolean scoped;
+    private final String parentPath;
+    // derived keys are immutable, so racy lazy initialization is safe
+    private TemplateKey noLocaleKey;
+    private TemplateKey minimalKey;
+    private volatile Map<String, TemplateKey> dependencyKeys;
+    private volatile Map<String, TemplateKey> renamedKeys;
 
     public TemplateKey(String module, String name, Locale locale) {
+        this(module, resolveTemplateName(name), locale, null);
+    }
+
+    // name must be already resolved
+    private TemplateKey(String module, String name, Locale locale, TemplateKey noLocaleKey) {
         this.module = module;
-        this.name = resolveTemplateName(name);
+        this.name = name;
         this.locale = locale;
+        this.hash = Objects.hash(module, name, locale);
+        this.scoped = name.contains("_");
+        int separatorIndex = name.lastIndexOf(SEPARATOR);
+        this.parentPath = separatorIndex >= 0 ? name.substring(0, separatorIndex) : "";
+        this.noLocaleKey = locale == null ? this : noLocaleKey;
     }
 
     public boolean isAccessibleFrom(TemplateKey other) {
-        if (!name.contains("_")) {
-            return true;
-        }
-        String[] otherParts = other.name.split(SEPARATOR);
-        String[] parts = name.split(SEPARATOR);
-        if (parts.length != otherParts.length) {
-            return false;
-        }
-        int i = 0;
-        while (i < parts.length - 1 && parts[i].equals(otherParts[i])) {
-            ++i;
-        }
-        return i == parts.length - 1;
+        // scoped templates are accessible only from the same directory
+        return !scoped || parentPath.equals(other.parentPath);
     }
 
     public boolean isScoped() {
-        return name.contains("_");
+        return scoped;
     }
 
     public String getModule() {
@@ -48,8 +58,32 @@ public final class TemplateKey {
     }
 
     public TemplateKey dependencyKey(String name) {
+        Map<String, TemplateKey> cache = dependencyKeys;
+        if (cache == null) {
+            cache = new ConcurrentHashMap<>();
+            dependencyKeys = cache;
+        }
+        TemplateKey cached = cache.get(name);
+        if (cached != null) {
+            return cached;
+        }
         String resolved = resolveTemplateDependencyName(this.name, name);
-        return withName(resolved);
+        TemplateKey result = Objects.equals(this.name, resolved)
+                ? this
+                : new TemplateKey(module, resolved, locale, null);
+        cacheDerivedKey(cache, name, result);
+        return result;
+    }
+
+    TemplateKey toMinimalKey() {
+        TemplateKey result = minimalKey;
+        if (result == null) {
+            result = scoped
+                    ? withNoLocale()
+                    : withNoLocale().withNoModule();
+            minimalKey = result;
+        }
+        return result;
     }
 
     public String getName() {
@@ -67,23 +101,57 @@ public final class TemplateKey {
     public TemplateKey withModule(String module) {
         return Objects.equals(this.module, module)
                 ? this
-                : new TemplateKey(module, name, locale);
+                : new TemplateKey(module, name, locale, null);
     }
 
     public TemplateKey withName(String name) {
         return Objects.equals(this.name, name)
                 ? this
-                : new TemplateKey(module, name, locale);
+                : new TemplateKey(module, resolveTemplateName(name), locale, null);
+    }
+
+    // used in the render loop, where the same names are looked up on every render
+    TemplateKey withNameCached(String name) {
+        if (Objects.equals(this.name, name)) {
+            return this;
+        }
+        Map<String, TemplateKey> cache = renamedKeys;
+        if (cache == null) {
+            cache = new ConcurrentHashMap<>();
+            renamedKeys = cache;
+        }
+        TemplateKey cached = cache.get(name);
+        if (cached != null) {
+            return cached;
+        }
+        TemplateKey result = withName(name);
+        cacheDerivedKey(cache, name, result);
+        return result;
     }
 
     public TemplateKey withLocale(Locale locale) {
-        return Objects.equals(this.locale, locale)
-                ? this
-                : new TemplateKey(module, name, locale);
+        if (Objects.equals(this.locale, locale)) {
+            return this;
+        }
+        return locale == null
+                ? withNoLocale()
+                : new TemplateKey(module, name, locale, withNoLocale());
     }
 
     public TemplateKey withNoLocale() {
-        return withLocale(null);
+        TemplateKey result = noLocaleKey;
+        if (result == null) {
+            result = new TemplateKey(module, name, null, null);
+            noLocaleKey = result;
+        }
+        return result;
+    }
+
+    private static void cacheDerivedKey(Map<String, TemplateKey> cache, String name, TemplateKey key) {
+        // names computed at render time could grow the cache without limit
+        if (cache.size() < MAX_CACHED_DERIVED_KEYS) {
+            cache.putIfAbsent(name, key);
+        }
     }
 
     public TemplateKey withNoModule() {
@@ -99,14 +167,15 @@ public final class TemplateKey {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         TemplateKey that = (TemplateKey) o;
-        return Objects.equals(module, that.module)
+        return hash == that.hash
+                && Objects.equals(module, that.module)
                 && Objects.equals(name, that.name)
                 && Objects.equals(locale, that.locale);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(module, name, locale);
+        return hash;
     }
 
     @Override
@@ -0,0 +1,64 @@
+package com.coditory.freemarker.reactor;
+
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static java.util.Objects.requireNonNull;
+
+// Adapts a cache keyed by template keys to resolution results cached per request.
+// Requests with more than one module do not map onto a template key and are not cached.
+final class TemplateKeyResolutionCache implements Cache<TemplateRequest, ResolvedTemplate> {
+    private final Cache<TemplateKey, ResolvedTemplate> cache;
+
+    TemplateKeyResolutionCache(Cache<TemplateKey, ResolvedTemplate> cache) {
+        this.cache = requireNonNull(cache);
+    }
+
+    @Override
+    public Mono<ResolvedTemplate> getOrLoad(TemplateRequest request, Function<TemplateRequest, Mono<ResolvedTemplate>> load) {
+        requireNonNull(request);
+        requireNonNull(load);
+        TemplateKey key = toTemplateKey(request);
+        return key != null
+                ? cache.getOrLoad(key, it -> load.apply(request))
+                : load.apply(request);
+    }
+
+    @Override
+    public void invalidate(TemplateRequest request) {
+        TemplateKey key = toTemplateKey(request);
+        if (key != null) {
+            cache.invalidate(key);
+        }
+    }
+
+    @Override
+    public void invalidateIf(Predicate<TemplateRequest> predicate) {
+        requireNonNull(predicate);
+        cache.invalidateIf(key -> predicate.test(toTemplateRequest(key)));
+    }
+
+    @Override
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private TemplateKey toTemplateKey(TemplateRequest request) {
+        List<String> modules = request.getModules();
+        if (modules.size() > 1) {
+            return null;
+        }
+        String module = modules.isEmpty() ? null : modules.get(0);
+        return new TemplateKey(module, request.getName(), request.getLocale());
+    }
+
+    private TemplateRequest toTemplateRequest(TemplateKey key) {
+        return TemplateRequest.builder(key.getName())
+                .setModules(key.getModule() != null ? List.of(key.getModule()) : List.of())
+                .setLocale(key.getLocale())
+                .build();
+    }
+}
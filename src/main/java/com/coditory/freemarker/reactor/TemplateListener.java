@@ -0,0 +1,36 @@
+package com.coditory.freemarker.reactor;
+
+public interface TemplateListener {
+    // each probed candidate is reported, in a batched lookup the last probed candidate
+    // carries the duration of the whole lookup and the preceding misses report zero
+    default void onTemplateLoaded(TemplateKey key, boolean found, long durationNanos) {
+        // no-op by default
+    }
+
+    // resolvedKey is null and fallbackDepth equals the number of probed keys when template is missing
+    default void onTemplateResolved(TemplateRequest request, TemplateKey resolvedKey, int fallbackDepth, long durationNanos) {
+        // no-op by default
+    }
+
+    default void onTemplateParsed(TemplateKey key, long durationNanos) {
+        // no-op by default
+    }
+
+    default void onTemplateCreated(TemplateKey key, int dependencies, long durationNanos) {
+        // no-op by default
+    }
+
+    default void onTemplateProcessed(TemplateKey key, int renderPasses, long outputLength, long durationNanos) {
+        // no-op by default
+    }
+
+    default void onCacheAccess(CacheType cacheType, boolean hit) {
+        // no-op by default
+    }
+
+    enum CacheType {
+        RESOLVED_TEMPLATES,
+        PARSED_TEMPLATES,
+        COMPILED_TEMPLATES
+    }
+}
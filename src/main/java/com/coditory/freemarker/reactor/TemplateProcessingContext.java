@@ -0,0 +1,138 @@
+package com.coditory.freemarker.reactor;
+
+import freemarker.core.Environment;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static java.util.Objects.requireNonNull;
+
+final class TemplateProcessingContext {
+    private static final ThreadLocal<TemplateProcessingContext> THREAD_CONTEXT = new ThreadLocal<>();
+
+    static TemplateProcessingContext setupInThreadLocal(
+            TemplateResolutionContext resolutionContext,
+            boolean streaming,
+            Consumer<TemplateKey> blockingResolver
+    ) {
+        TemplateProcessingContext previous = THREAD_CONTEXT.get();
+        THREAD_CONTEXT.set(new TemplateProcessingContext(resolutionContext, streaming, blockingResolver));
+        return previous;
+    }
+
+    static void restoreInThreadLocal(TemplateProcessingContext previous) {
+        TemplateProcessingContext current = THREAD_CONTEXT.get();
+        if (current != null) {
+            current.close();
+        }
+        if (previous == null) {
+            THREAD_CONTEXT.remove();
+        } else {
+            THREAD_CONTEXT.set(previous);
+        }
+    }
+
+    static TemplateProcessingContext getFromThreadLocal() {
+        TemplateProcessingContext context = THREAD_CONTEXT.get();
+        if (context == null) {
+            throw new TemplateResolutionException("TemplateProcessingContext not found in thread local");
+        }
+        return context;
+    }
+
+    static TemplateProcessingContext findInThreadLocal() {
+        return THREAD_CONTEXT.get();
+    }
+
+    private final TemplateResolutionContext resolutionContext;
+    private final Deque<TemplateKey> parentTemplates = new ArrayDeque<>();
+    private final boolean streaming;
+    private final Consumer<TemplateKey> blockingResolver;
+    private boolean skippedDependencies;
+    private List<Runnable> closeHandlers;
+
+    private TemplateProcessingContext(
+            TemplateResolutionContext resolutionContext,
+            boolean streaming,
+            Consumer<TemplateKey> blockingResolver
+    ) {
+        this.resolutionContext = requireNonNull(resolutionContext);
+        this.streaming = streaming;
+        this.blockingResolver = blockingResolver;
+        this.parentTemplates.push(resolutionContext.getMainTemplate());
+    }
+
+    // Only a single streamed pass on a blocking-friendly scheduler may consume a StreamedFlux
+    boolean isStreaming() {
+        return streaming;
+    }
+
+    // Set when this pass skipped a dependency that is not resolved yet, so its output is incomplete
+    boolean hasSkippedDependencies() {
+        return skippedDependencies;
+    }
+
+    void skipDependency() {
+        skippedDependencies = true;
+    }
+
+    // Passes that run on a scheduler that allows blocking resolve dependencies as soon as they are discovered,
+    // so they never need another pass
+    void resolveDependency(TemplateKey dependency) {
+        requireNonNull(dependency);
+        if (blockingResolver != null
+                && !resolutionContext.isResolved(dependency)
+                && !resolutionContext.isMissing(dependency)) {
+            blockingResolver.accept(dependency);
+        }
+    }
+
+    void onClose(Runnable handler) {
+        requireNonNull(handler);
+        if (closeHandlers == null) {
+            closeHandlers = new ArrayList<>();
+        }
+        closeHandlers.add(handler);
+    }
+
+    private void close() {
+        if (closeHandlers != null) {
+            closeHandlers.forEach(Runnable::run);
+            closeHandlers = null;
+        }
+    }
+
+    TemplateResolutionContext getResolutionContext() {
+        return resolutionContext;
+    }
+
+    TemplateKey getCurrentTemplate(Environment env) {
+        requireNonNull(env);
+        String templateName = env.getCurrentTemplate().getName();
+        TemplateKey templateKey = getParentTemplate().withNameCached(templateName);
+        ResolvedTemplate resolvedTemplate = resolutionContext.getResolved(templateKey);
+        if (resolvedTemplate == null) {
+            throw new IllegalStateException("Expected " + templateKey + " to be resolved");
+        }
+        return resolvedTemplate.getKey();
+    }
+
+    TemplateKey getParentTemplate() {
+        return parentTemplates.peek();
+    }
+
+    void enterDependency(TemplateKey parentTemplate) {
+        requireNonNull(parentTemplate);
+        parentTemplates.push(parentTemplate.withNoLocale());
+    }
+
+    void exitDependency() {
+        if (parentTemplates.size() <= 1) {
+            throw new IllegalStateException("Expected to exit a template dependency");
+        }
+        parentTemplates.pop();
+    }
+}
@@ -1,184 +1,199 @@
 package com.coditory.freemarker.reactor;
 
-import freemarker.core.Environment;
 import freemarker.template.TemplateModel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static java.util.Collections.unmodifiableCollection;
 import static java.util.Collections.unmodifiableSet;
 import static java.util.Objects.requireNonNull;
 
 final class TemplateResolutionContext implements TemplateModel {
-    private static final ThreadLocal<TemplateResolutionContext> THREAD_CONTEXT = new ThreadLocal<>();
-
-    static void setupInThreadLocal(TemplateResolutionContext context) {
-        THREAD_CONTEXT.set(context);
-    }
-
-    static void removeFromThreadLocal() {
-        THREAD_CONTEXT.remove();
-    }
-
-    static TemplateResolutionContext getFromThreadLocal() {
-        TemplateResolutionContext context = THREAD_CONTEXT.get();
-        if (context == null) {
-            throw new TemplateResolutionException("TemplateResolutionContext not found in thread local");
-        }
-        return context;
-    }
-
+    private static final int UNRESOLVED = 1;
+    private static final int MISSING = 2;
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
-    private final AtomicReference<TemplateKey> parentTemplate = new AtomicReference<>();
-    private final Map<TemplateKey, Set<TemplateKey>> dependencies = new ConcurrentHashMap<>();
-    private final Map<TemplateKey, ResolvedTemplate> resolved = new ConcurrentHashMap<>();
-    private final Set<TemplateKey> unresolved = ConcurrentHashMap.newKeySet();
-    private final Set<TemplateKey> missing = ConcurrentHashMap.newKeySet();
+    private final TemplateKey mainTemplate;
+    private final Map<TemplateKey, Node> nodes = new ConcurrentHashMap<>();
+    // guarded by this
+    private final DependencyGraph dependencies = new DependencyGraph();
+    private final AtomicInteger unresolvedCount = new AtomicInteger();
+    private volatile boolean dynamicDependencies;
 
     TemplateResolutionContext(TemplateKey mainTemplateKey, ResolvedTemplate resolvedTemplate) {
-        TemplateKey mainTemplateKeyWithOutLocale = mainTemplateKey.withNoLocale();
-        this.parentTemplate.set(mainTemplateKeyWithOutLocale);
-        addResolvedDependency(mainTemplateKeyWithOutLocale, resolvedTemplate);
-    }
-
-    TemplateKey getCurrentTemplate(Environment env) {
-        requireNonNull(env);
-        String templateName = env.getCurrentTemplate().getName();
-        TemplateKey templateKey = toMinimalTemplateKey(templateName);
-        if (!isResolved(templateKey)) {
-            throw new IllegalStateException("Expected " + templateKey + " to be resolved");
-        }
-        return resolved.get(templateKey).getKey();
+        this.mainTemplate = mainTemplateKey.withNoLocale();
+        addResolvedDependency(mainTemplate, resolvedTemplate);
     }
 
-    TemplateKey getParentTemplate() {
-        return parentTemplate.get();
+    TemplateKey getMainTemplate() {
+        return mainTemplate;
     }
 
-    void setParentTemplate(TemplateKey templateKey) {
-        requireNonNull(templateKey);
-        parentTemplate.set(templateKey.withNoLocale());
+    private TemplateKey toMinimalTemplateKey(TemplateKey key) {
+        return key.toMinimalKey();
     }
 
-    private TemplateKey toMinimalTemplateKey(String templateName) {
-        TemplateKey key = getParentTemplate().withName(templateName);
-        return toMinimalTemplateKey(key);
+    private Node findNode(TemplateKey templateKey) {
+        return nodes.get(toMinimalTemplateKey(templateKey));
     }
 
-    private TemplateKey toMinimalTemplateKey(TemplateKey key) {
-        return key.isScoped()
-                ? key.withNoLocale()
-                : key.withNoLocale().withNoModule();
+    private Node getOrCreateNode(TemplateKey templateKey) {
+        TemplateKey key = toMinimalTemplateKey(templateKey);
+        Node node = nodes.get(key);
+        if (node != null) {
+            return node;
+        }
+        synchronized (this) {
+            return nodes.computeIfAbsent(key, it -> new Node(it, dependencies.addNode()));
+        }
     }
 
     boolean isRegistered(TemplateKey templateKey) {
         requireNonNull(templateKey);
-        TemplateKey key = toMinimalTemplateKey(templateKey);
-        return unresolved.contains(key)
-                || resolved.containsKey(key)
-                || missing.contains(key);
+        Node node = findNode(templateKey);
+        return node != null && (node.state != 0 || node.resolved != null);
     }
 
     void addResolvedDependency(TemplateKey templateKey, ResolvedTemplate resolvedTemplate) {
         requireNonNull(templateKey);
         requireNonNull(resolvedTemplate);
-        TemplateKey minTemplateKey = toMinimalTemplateKey(templateKey);
-        unresolved.remove(minTemplateKey);
-        resolved.put(minTemplateKey, resolvedTemplate);
+        Node node = getOrCreateNode(templateKey);
+        synchronized (this) {
+            clearUnresolved(node);
+            node.resolved = resolvedTemplate;
+        }
     }
 
     public void addMissingDependency(TemplateKey templateKey) {
         requireNonNull(templateKey);
-        TemplateKey minTemplateKey = toMinimalTemplateKey(templateKey);
-        unresolved.remove(minTemplateKey);
-        missing.add(minTemplateKey);
+        Node node = getOrCreateNode(templateKey);
+        synchronized (this) {
+            clearUnresolved(node);
+            node.state |= MISSING;
+        }
     }
 
     boolean isResolved(TemplateKey templateKey) {
         requireNonNull(templateKey);
-        TemplateKey minTemplateKey = toMinimalTemplateKey(templateKey);
-        return resolved.containsKey(minTemplateKey);
+        Node node = findNode(templateKey);
+        return node != null && node.resolved != null;
     }
 
     boolean isMissing(TemplateKey templateKey) {
         requireNonNull(templateKey);
-        TemplateKey minTemplateKey = toMinimalTemplateKey(templateKey);
-        return missing.contains(minTemplateKey);
+        Node node = findNode(templateKey);
+        return node != null && (node.state & MISSING) != 0;
     }
 
     ResolvedTemplate getResolved(TemplateKey templateKey) {
         requireNonNull(templateKey);
-        TemplateKey minTemplateKey = toMinimalTemplateKey(templateKey);
-        return resolved.get(minTemplateKey);
+        Node node = findNode(templateKey);
+        return node != null ? node.resolved : null;
+    }
+
+    Collection<ResolvedTemplate> getResolvedDependencies() {
+        List<ResolvedTemplate> result = new ArrayList<>(nodes.size());
+        for (Node node : nodes.values()) {
+            ResolvedTemplate resolved = node.resolved;
+            if (resolved != null) {
+                result.add(resolved);
+            }
+        }
+        return unmodifiableCollection(result);
     }
 
     Set<TemplateKey> getUnresolvedDependencies() {
-        return unmodifiableSet(unresolved);
+        if (!hasUnresolvedDependencies()) {
+            return Set.of();
+        }
+        Set<TemplateKey> result = new HashSet<>();
+        for (Node node : nodes.values()) {
+            if ((node.state & UNRESOLVED) != 0) {
+                result.add(node.key);
+            }
+        }
+        return unmodifiableSet(result);
     }
 
     boolean hasUnresolvedDependencies() {
-        return !unresolved.isEmpty();
+        return unresolvedCount.get() > 0;
+    }
+
+    void markDynamicDependencies() {
+        dynamicDependencies = true;
+    }
+
+    boolean hasDynamicDependencies() {
+        return dynamicDependencies;
     }
 
     void addDependency(TemplateKey templateKey, TemplateKey dependencyKey) {
         requireNonNull(templateKey);
         requireNonNull(dependencyKey);
-        TemplateKey minTemplateKey = toMinimalTemplateKey(templateKey);
-        TemplateKey minDependencyKey = toMinimalTemplateKey(dependencyKey);
-        validateDependency(minTemplateKey, minDependencyKey);
-        if (resolved.containsKey(minDependencyKey) || missing.contains(minDependencyKey)) {
-            return;
+        Node template = getOrCreateNode(templateKey);
+        Node dependency = getOrCreateNode(dependencyKey);
+        validateAccessibility(template.key, dependency.key);
+        synchronized (this) {
+            if (!dependencies.hasEdge(template.id, dependency.id)) {
+                if (!dependencies.addEdge(template.id, dependency.id)) {
+                    throw new TemplateResolutionException("Detected circular template dependency: " +
+                            template.key + " <-> " + dependency.key);
+                }
+                logger.trace("Added dependency: " + template.key + " -> " + dependency.key);
+            }
+            markUnresolved(dependency);
         }
-        unresolved.add(minDependencyKey);
-        logger.trace("Added dependency: " + minTemplateKey + " -> " + minDependencyKey);
-        dependencies.compute(minTemplateKey, (key, value) -> {
-            Set<TemplateKey> values = value == null ? new HashSet<>() : value;
-            values.add(minDependencyKey);
-            return values;
-        });
     }
 
-    private void validateDependency(TemplateKey templateKey, TemplateKey dependency) {
-        if (!dependency.isAccessibleFrom(templateKey)) {
-            throw new TemplateResolutionException("Detected dependency to package scope template: " +
-                    templateKey + " -> " + dependency);
-        }
-        if (templateKey.equals(dependency) || isCycle(templateKey, dependency)) {
-            throw new TemplateResolutionException("Detected circular template dependency: " +
-                    templateKey + " <-> " + dependency);
+    boolean registerDependency(TemplateKey dependencyKey) {
+        requireNonNull(dependencyKey);
+        Node node = getOrCreateNode(dependencyKey);
+        synchronized (this) {
+            return markUnresolved(node);
         }
     }
 
-    private boolean isCycle(TemplateKey templateKey, TemplateKey templateDependency) {
-        Set<TemplateKey> dependencies = getAllDependencies(templateDependency);
-        return dependencies.contains(templateKey);
+    private boolean markUnresolved(Node node) {
+        if (node.resolved != null || node.state != 0) {
+            return false;
+        }
+        node.state = UNRESOLVED;
+        unresolvedCount.incrementAndGet();
+        return true;
     }
 
-    private Set<TemplateKey> getAllDependencies(TemplateKey templateKey) {
-        return dfs(templateKey, dependencies);
+    private void clearUnresolved(Node node) {
+        if ((node.state & UNRESOLVED) != 0) {
+            node.state &= ~UNRESOLVED;
+            unresolvedCount.decrementAndGet();
+        }
     }
 
-    private Set<TemplateKey> dfs(TemplateKey templateKey, Map<TemplateKey, Set<TemplateKey>> source) {
-        Set<TemplateKey> children = source.getOrDefault(templateKey, Set.of());
-        if (children.isEmpty()) {
-            return children;
+    private void validateAccessibility(TemplateKey templateKey, TemplateKey dependency) {
+        if (!dependency.isAccessibleFrom(templateKey)) {
+            throw new TemplateResolutionException("Detected dependency to package scope template: " +
+                    templateKey + " -> " + dependency);
         }
-        Set<TemplateKey> result = new HashSet<>();
-        List<TemplateKey> stack = new ArrayList<>(children);
-        while (!stack.isEmpty()) {
-            TemplateKey dependent = stack.remove(stack.size() - 1);
-            if (!result.contains(dependent)) {
-                result.add(dependent);
-                stack.addAll(source.getOrDefault(dependent, Set.of()));
-            }
+    }
+
+    private static final class Node {
+        private final TemplateKey key;
+        private final int id;
+        // written under the context lock, read without it
+        private volatile int state;
+        private volatile ResolvedTemplate resolved;
+
+        Node(TemplateKey key, int id) {
+            this.key = key;
+            this.id = id;
         }
-        return result;
     }
 }
@@ -19,16 +19,32 @@ import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toList;
 
 final class TemplateResolver {
+    static final int DEFAULT_PROBE_PARALLELISM = 1;
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
     private final TemplateLoader loader;
     private final List<String> commonModules;
-    private final Cache<TemplateKey, ResolvedTemplate> cache;
+    private final Cache<TemplateRequest, ResolvedTemplate> cache;
+    private final TemplateListener listener;
+    private final int probeParallelism;
 
-    TemplateResolver(TemplateLoader loader, List<String> commonModules, Cache<TemplateKey, ResolvedTemplate> cache) {
+    TemplateResolver(
+            TemplateLoader loader,
+            List<String> commonModules,
+            Cache<TemplateRequest, ResolvedTemplate> cache,
+            TemplateListener listener,
+            int probeParallelism
+    ) {
+        if (probeParallelism < 1) {
+            throw new IllegalArgumentException("Expected positive probe parallelism. Got: " + probeParallelism);
+        }
+        this.probeParallelism = probeParallelism;
         this.loader = requireNonNull(loader);
         requireNonNull(commonModules);
         this.commonModules = List.copyOf(commonModules);
-        this.cache = requireNonNull(cache);
+        this.cache = listener != null
+                ? new ObservedCache<>(requireNonNull(cache), TemplateListener.CacheType.RESOLVED_TEMPLATES, listener)
+                : requireNonNull(cache);
+        this.listener = listener;
     }
 
     Mono<ResolvedTemplate> resolveTemplateWithCommonModules(TemplateRequest request) {
@@ -37,15 +53,45 @@ final class TemplateResolver {
     }
 
     Mono<ResolvedTemplate> resolveTemplate(TemplateRequest request) {
+        requireNonNull(request);
+        return cache.getOrLoad(request, this::resolveTemplateWithoutCache);
+    }
+
+    boolean isCommonModule(String module) {
+        return module != null && commonModules.contains(module);
+    }
+
+    Flux<TemplateKey> listTemplates() {
+        return loader.listTemplates();
+    }
+
+    Flux<TemplateKey> changes() {
+        return loader.changes()
+                .doOnNext(key -> cache.invalidateIf(request -> generateTemplateKeys(request).contains(key)));
+    }
+
+    private Mono<ResolvedTemplate> resolveTemplateWithoutCache(TemplateRequest request) {
         List<TemplateKey> keys = generateTemplateKeys(request);
-        return Flux.fromIterable(keys)
-                .flatMapSequential(this::loadTemplateAndWrap)
-                .next()
+        Mono<ResolvedTemplate> result = loadFirst(keys)
                 .doOnNext(it -> logLoadedTemplate(request, it))
                 .switchIfEmpty(Mono.defer(() -> {
                     logMissingTemplate(request, keys);
                     return Mono.empty();
                 }));
+        return listener != null
+                ? observeResolution(request, keys, result)
+                : result;
+    }
+
+    private Mono<ResolvedTemplate> observeResolution(TemplateRequest request, List<TemplateKey> keys, Mono<ResolvedTemplate> result) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return result.doOnSuccess(resolved -> {
+                TemplateKey resolvedKey = resolved != null ? resolved.getKey() : null;
+                int fallbackDepth = resolvedKey != null ? keys.indexOf(resolvedKey) : keys.size();
+                listener.onTemplateResolved(request, resolvedKey, fallbackDepth, System.nanoTime() - start);
+            });
+        });
     }
 
     private void logLoadedTemplate(TemplateRequest request, ResolvedTemplate resolvedTemplate) {
@@ -75,9 +121,46 @@ final class TemplateResolver {
         }
     }
 
+    private Mono<ResolvedTemplate> loadFirst(List<TemplateKey> keys) {
+        if (probeParallelism == 1) {
+            return observeLoading(keys, loader.loadFirst(keys));
+        }
+        // candidates are probed in priority order, lower priority probes are cancelled on the first hit
+        return Flux.fromIterable(keys)
+                .flatMapSequential(this::loadTemplateAndWrap, probeParallelism, 1)
+                .next();
+    }
+
+    private Mono<ResolvedTemplate> observeLoading(List<TemplateKey> keys, Mono<ResolvedTemplate> result) {
+        if (listener == null) {
+            return result;
+        }
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return result.doOnSuccess(resolved -> reportBatchedProbes(keys, resolved, System.nanoTime() - start));
+        });
+    }
+
+    private void reportBatchedProbes(List<TemplateKey> keys, ResolvedTemplate resolved, long durationNanos) {
+        // loadFirst returns the first existing candidate, so every candidate before it was probed and missed
+        int probed = resolved != null ? keys.indexOf(resolved.getKey()) + 1 : keys.size();
+        for (int i = 0; i < probed; ++i) {
+            boolean last = i == probed - 1;
+            boolean found = last && resolved != null;
+            listener.onTemplateLoaded(keys.get(i), found, last ? durationNanos : 0L);
+        }
+    }
+
     private Mono<ResolvedTemplate> loadTemplateAndWrap(TemplateKey key) {
-        return loader.loadTemplate(key)
+        Mono<ResolvedTemplate> result = loader.loadTemplate(key)
                 .map(content -> new ResolvedTemplate(key, content));
+        if (listener == null) {
+            return result;
+        }
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return result.doOnSuccess(resolved -> listener.onTemplateLoaded(key, resolved != null, System.nanoTime() - start));
+        });
     }
 
     private List<TemplateKey> generateTemplateKeys(TemplateRequest request) {
@@ -0,0 +1,47 @@
+package com.coditory.freemarker.reactor;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+public final class WarmUpReport {
+    private final int templates;
+    private final Map<TemplateRequest, Throwable> failures;
+    private final Duration duration;
+
+    WarmUpReport(int templates, Map<TemplateRequest, Throwable> failures, Duration duration) {
+        this.templates = templates;
+        this.failures = Map.copyOf(requireNonNull(failures));
+        this.duration = requireNonNull(duration);
+    }
+
+    public int getTemplates() {
+        return templates;
+    }
+
+    public int getCreatedTemplates() {
+        return templates - failures.size();
+    }
+
+    public Map<TemplateRequest, Throwable> getFailures() {
+        return failures;
+    }
+
+    public boolean isSuccessful() {
+        return failures.isEmpty();
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    @Override
+    public String toString() {
+        return "WarmUpReport{" +
+                "templates=" + templates +
+                ", failures=" + failures.keySet() +
+                ", duration=" + duration +
+                '}';
+    }
+}
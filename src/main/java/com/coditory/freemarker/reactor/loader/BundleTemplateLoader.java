@@ -0,0 +1,119 @@
+package com.coditory.freemarker.reactor.loader;
+
+import com.coditory.freemarker.reactor.ResolvedTemplate;
+import com.coditory.freemarker.reactor.TemplateKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.coditory.freemarker.reactor.loader.TemplateBundleWriter.ENTRY_SIZE;
+import static com.coditory.freemarker.reactor.loader.TemplateBundleWriter.HEADER_SIZE;
+import static com.coditory.freemarker.reactor.loader.TemplateBundleWriter.MAGIC;
+import static com.coditory.freemarker.reactor.loader.TemplateBundleWriter.VERSION;
+import static com.coditory.freemarker.reactor.loader.TemplateFileNames.toTemplateFileName;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+public final class BundleTemplateLoader implements TemplateLoader, Closeable {
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final Path bundleFile;
+    // the mapping is released by GC once the buffer is unreachable, close() drops the reference
+    private volatile ByteBuffer buffer;
+    private final String[] keys;
+
+    public BundleTemplateLoader(Path bundleFile) {
+        this.bundleFile = bundleFile;
+        this.buffer = map(bundleFile);
+        this.keys = readKeys(bundleFile, buffer);
+    }
+
+    @Override
+    public Mono<String> loadTemplate(TemplateKey key) {
+        return Mono.fromCallable(() -> {
+            String name = toTemplateFileName(key);
+            int index = Arrays.binarySearch(keys, name);
+            if (index < 0) {
+                logger.trace("Could not find template {} in bundle: {}", key, bundleFile);
+                return null;
+            }
+            logger.trace("Loaded template {} from bundle {}", key, bundleFile);
+            return readBody(index);
+        });
+    }
+
+    @Override
+    public Mono<ResolvedTemplate> loadFirst(List<TemplateKey> keys) {
+        return Mono.fromCallable(() -> {
+            for (TemplateKey key : keys) {
+                int index = Arrays.binarySearch(this.keys, toTemplateFileName(key));
+                if (index >= 0) {
+                    logger.trace("Loaded template {} from bundle {}", key, bundleFile);
+                    return new ResolvedTemplate(key, readBody(index));
+                }
+            }
+            logger.trace("Could not find any of templates {} in bundle: {}", keys, bundleFile);
+            return null;
+        });
+    }
+
+    @Override
+    public Flux<TemplateKey> listTemplates() {
+        return Flux.fromArray(keys)
+                .flatMapIterable(TemplateFileNames::toTemplateKeys);
+    }
+
+    @Override
+    public void close() {
+        buffer = null;
+    }
+
+    private String readBody(int index) {
+        ByteBuffer buffer = this.buffer;
+        if (buffer == null) {
+            throw new TemplateLoadingException("Template bundle is closed: " + bundleFile);
+        }
+        int entry = HEADER_SIZE + index * ENTRY_SIZE;
+        int offset = buffer.getInt(entry + 2 * Integer.BYTES);
+        int length = buffer.getInt(entry + 3 * Integer.BYTES);
+        ByteBuffer body = buffer.duplicate();
+        body.position(offset).limit(offset + length);
+        return UTF_8.decode(body).toString();
+    }
+
+    private static ByteBuffer map(Path bundleFile) {
+        try (FileChannel channel = FileChannel.open(bundleFile, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new TemplateLoadingException("Could not read template bundle: " + bundleFile, e);
+        }
+    }
+
+    private static String[] readKeys(Path bundleFile, ByteBuffer buffer) {
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new TemplateLoadingException("Invalid template bundle: " + bundleFile);
+        }
+        int version = buffer.getInt(Integer.BYTES);
+        if (version != VERSION) {
+            throw new TemplateLoadingException("Unsupported template bundle version " + version + ": " + bundleFile);
+        }
+        int count = buffer.getInt(2 * Integer.BYTES);
+        String[] keys = new String[count];
+        for (int i = 0; i < count; ++i) {
+            int entry = HEADER_SIZE + i * ENTRY_SIZE;
+            ByteBuffer key = buffer.duplicate();
+            int offset = buffer.getInt(entry);
+            key.position(offset).limit(offset + buffer.getInt(entry + Integer.BYTES));
+            keys[i] = UTF_8.decode(key).toString();
+        }
+        return keys;
+    }
+}
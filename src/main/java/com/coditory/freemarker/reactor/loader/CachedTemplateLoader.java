@@ -2,6 +2,7 @@ package com.coditory.freemarker.reactor.loader;
 
 import com.coditory.freemarker.reactor.Cache;
 import com.coditory.freemarker.reactor.TemplateKey;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import static java.util.Objects.requireNonNull;
@@ -26,4 +27,15 @@ public final class CachedTemplateLoader implements TemplateLoader {
     public Mono<String> loadTemplate(TemplateKey key) {
         return cache.getOrLoad(key, loader::loadTemplate);
     }
+
+    @Override
+    public Flux<TemplateKey> listTemplates() {
+        return loader.listTemplates();
+    }
+
+    @Override
+    public Flux<TemplateKey> changes() {
+        return loader.changes()
+                .doOnNext(cache::invalidate);
+    }
 }
@@ -1,25 +1,119 @@
 package com.coditory.freemarker.reactor.loader;
 
 import com.coditory.freemarker.reactor.TemplateKey;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+
+import static java.util.Collections.synchronizedMap;
+import static java.util.Objects.requireNonNull;
 
 public class ChainedTemplateLoader implements TemplateLoader {
+    private static final int MAX_LAST_LOADERS = 1024;
     private final List<TemplateLoader> loaders;
+    private final Duration hedgeDelay;
+    private final Map<TemplateKey, Integer> lastLoaders = synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<TemplateKey, Integer> eldest) {
+            return size() > MAX_LAST_LOADERS;
+        }
+    });
 
     public ChainedTemplateLoader(List<TemplateLoader> loaders) {
+        this(loaders, null);
+    }
+
+    public ChainedTemplateLoader(List<TemplateLoader> loaders, Duration hedgeDelay) {
         if (loaders == null || loaders.isEmpty()) {
             throw new IllegalArgumentException("Expected non empty list of template loaders");
         }
+        if (hedgeDelay != null && (hedgeDelay.isNegative() || hedgeDelay.isZero())) {
+            throw new IllegalArgumentException("Expected positive hedge delay. Got: " + hedgeDelay);
+        }
         this.loaders = List.copyOf(loaders);
+        this.hedgeDelay = hedgeDelay;
     }
 
     @Override
     public Mono<String> loadTemplate(TemplateKey key) {
+        requireNonNull(key);
+        return hedgeDelay != null
+                ? loadHedged(key)
+                : loadSequentially(key, 0);
+    }
+
+    @Override
+    public Flux<TemplateKey> listTemplates() {
+        return Flux.fromIterable(loaders)
+                .concatMap(TemplateLoader::listTemplates)
+                .distinct();
+    }
+
+    @Override
+    public Flux<TemplateKey> changes() {
         return Flux.fromIterable(loaders)
-                .flatMapSequential(loader -> loader.loadTemplate(key))
-                .next();
+                .flatMap(TemplateLoader::changes)
+                .doOnNext(lastLoaders::remove);
+    }
+
+    private Mono<String> loadSequentially(TemplateKey key, int index) {
+        if (index >= loaders.size()) {
+            return Mono.empty();
+        }
+        return loaders.get(index)
+                .loadTemplate(key)
+                .switchIfEmpty(Mono.defer(() -> loadSequentially(key, index + 1)));
+    }
+
+    private Mono<String> loadHedged(TemplateKey key) {
+        return Mono.defer(() -> {
+            // the loader that answered last time starts right away, but a hit of a loader with higher priority still wins
+            Integer lastLoader = lastLoaders.get(key);
+            List<Sinks.Empty<Void>> startNext = new ArrayList<>(loaders.size());
+            List<Mono<LoadedTemplate>> probes = new ArrayList<>(loaders.size());
+            for (int i = 0; i < loaders.size(); ++i) {
+                Sinks.Empty<Void> next = Sinks.empty();
+                startNext.add(next);
+                Mono<LoadedTemplate> probe = probe(key, i, next);
+                probes.add(i == 0 || lastLoader != null && lastLoader == i
+                        ? probe
+                        : startNext.get(i - 1).asMono().then(probe));
+            }
+            // results are taken in priority order and pending probes are cancelled on the first hit
+            return Flux.mergeSequential(probes)
+                    .next()
+                    .doOnNext(it -> lastLoaders.put(key, it.loaderIndex))
+                    .map(it -> it.content);
+        });
+    }
+
+    private Mono<LoadedTemplate> probe(TemplateKey key, int index, Sinks.Empty<Void> startNext) {
+        return Mono.defer(() -> {
+            // the next loader starts when this one misses or does not answer in time
+            Disposable hedge = Mono.delay(hedgeDelay)
+                    .subscribe(it -> startNext.tryEmitEmpty());
+            return loaders.get(index)
+                    .loadTemplate(key)
+                    .map(content -> new LoadedTemplate(index, content))
+                    .switchIfEmpty(Mono.fromRunnable(startNext::tryEmitEmpty))
+                    .doFinally(signal -> hedge.dispose());
+        });
+    }
+
+    private static final class LoadedTemplate {
+        private final int loaderIndex;
+        private final String content;
+
+        LoadedTemplate(int loaderIndex, String content) {
+            this.loaderIndex = loaderIndex;
+            this.content = content;
+        }
     }
 }
@@ -1,27 +1,57 @@
 package com.coditory.freemarker.reactor.loader;
 
+import com.coditory.freemarker.reactor.ResolvedTemplate;
 import com.coditory.freemarker.reactor.TemplateKey;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.file.FileSystem;
+import java.nio.file.FileSystemAlreadyExistsException;
 import java.nio.file.FileSystemNotFoundException;
 import java.nio.file.FileSystems;
+import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
 
-public final class ClasspathTemplateLoader implements TemplateLoader {
+import static com.coditory.freemarker.reactor.loader.TemplateFileNames.toTemplateKeys;
+import static java.util.Collections.synchronizedMap;
+
+public final class ClasspathTemplateLoader implements TemplateLoader, Closeable {
+    private static final String JAR_URI_SEPARATOR = "!/";
+    private static final int MAX_RESOLVED_PATHS = 1024;
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
     private final ClassLoader classLoader;
     private final Path basePath;
     private final String fileExtension;
+    private final Map<URI, FileSystem> fileSystems = new ConcurrentHashMap<>();
+    private final List<FileSystem> ownedFileSystems = new CopyOnWriteArrayList<>();
+    // classloader lookups, including misses, are memoized in a bounded map
+    private final Map<String, Optional<Path>> resolvedPaths = synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Optional<Path>> eldest) {
+            return size() > MAX_RESOLVED_PATHS;
+        }
+    });
+    private volatile Mono<ClasspathIndex> index;
 
     public ClasspathTemplateLoader() {
         this("");
@@ -35,6 +65,7 @@ public final class ClasspathTemplateLoader implements TemplateLoader {
         this.basePath = Path.of(basePath);
         this.fileExtension = fileExtension;
         this.classLoader = classLoader;
+        this.index = createIndex();
     }
 
     @Override
@@ -50,6 +81,87 @@ public final class ClasspathTemplateLoader implements TemplateLoader {
                 }));
     }
 
+    @Override
+    public Mono<ResolvedTemplate> loadFirst(List<TemplateKey> keys) {
+        return index.flatMap(index -> {
+            List<String> relativePaths = new ArrayList<>(keys.size());
+            int firstFound = -1;
+            boolean lookup = false;
+            for (TemplateKey key : keys) {
+                String relativePath = generateFileName(key).toString();
+                relativePaths.add(relativePath);
+                Optional<Path> known = findKnownPath(index, relativePath);
+                if (known == null) {
+                    lookup = true;
+                } else if (known.isPresent()) {
+                    firstFound = relativePaths.size() - 1;
+                    break;
+                }
+            }
+            int knownIndex = firstFound;
+            // candidates with higher priority than the first known path are looked up in a single blocking task
+            Mono<Integer> found = lookup
+                    ? Mono.fromCallable(() -> resolveFirst(index, relativePaths, knownIndex)).subscribeOn(Schedulers.boundedElastic())
+                    : Mono.justOrEmpty(knownIndex < 0 ? null : knownIndex);
+            return found.flatMap(i -> {
+                TemplateKey key = keys.get(i);
+                String relativePath = relativePaths.get(i);
+                return findPath(index, relativePath)
+                        .flatMap(this::readTemplate)
+                        .onErrorMap(it -> new TemplateLoadingException("Could not load template " + key + " from classpath: " + relativePath, it))
+                        .map(content -> new ResolvedTemplate(key, content));
+            }).switchIfEmpty(Mono.defer(() -> {
+                logger.trace("Could not find any of templates {} on classpath", keys);
+                return Mono.empty();
+            }));
+        });
+    }
+
+    private Integer resolveFirst(ClasspathIndex index, List<String> relativePaths, int knownIndex) {
+        int candidates = knownIndex < 0 ? relativePaths.size() : knownIndex;
+        for (int i = 0; i < candidates; ++i) {
+            String relativePath = relativePaths.get(i);
+            if (findKnownPath(index, relativePath) == null && resolveClassPathFile(relativePath) != null) {
+                return i;
+            }
+        }
+        return knownIndex < 0 ? null : knownIndex;
+    }
+
+    @Override
+    public Flux<TemplateKey> listTemplates() {
+        return index.flatMapIterable(it -> it.paths.keySet())
+                .map(Path::of)
+                .filter(path -> path.startsWith(basePath))
+                .flatMapIterable(path -> toTemplateKeys(basePath.relativize(path), fileExtension));
+    }
+
+    @Override
+    public void close() {
+        for (FileSystem fileSystem : ownedFileSystems) {
+            try {
+                fileSystem.close();
+            } catch (IOException e) {
+                throw new TemplateLoadingException("Could not close file system when reading template from classpath", e);
+            }
+        }
+        ownedFileSystems.clear();
+        fileSystems.clear();
+        resolvedPaths.clear();
+        // the previous index points into closed file systems, later loads index the classpath again
+        index = createIndex();
+    }
+
+    private Mono<ClasspathIndex> createIndex() {
+        return Mono.fromCallable(this::buildIndex)
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume(e -> {
+                    logger.warn("Could not index classpath templates under: " + basePath, e);
+                    return Mono.just(new ClasspathIndex(Map.of(), false));
+                })
+                .cache();
+    }
+
     private Path generateFileName(TemplateKey key) {
         String name = key.getName();
         Locale locale = key.getLocale();
@@ -66,47 +178,121 @@ public final class ClasspathTemplateLoader implements TemplateLoader {
     }
 
     private Mono<String> loadTemplate(Path relativePath) {
-        URI uri = resolveClassPathFile(relativePath);
-        if (uri == null) {
-            return Mono.empty();
+        return index
+                .flatMap(it -> findPath(it, relativePath.toString()))
+                .flatMap(this::readTemplate);
+    }
+
+    private Mono<String> readTemplate(Path path) {
+        return FileReader.readText(path)
+                .onErrorResume(NoSuchFileException.class, e -> Mono.empty());
+    }
+
+    private Mono<Path> findPath(ClasspathIndex index, String relativePath) {
+        Optional<Path> known = findKnownPath(index, relativePath);
+        if (known != null) {
+            return Mono.justOrEmpty(known);
+        }
+        return Mono.fromCallable(() -> resolveClassPathFile(relativePath))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    // Returns null when the path is not known and has to be looked up with the classloader
+    private Optional<Path> findKnownPath(ClasspathIndex index, String relativePath) {
+        Path indexed = index.paths.get(relativePath);
+        if (indexed != null || index.complete) {
+            return Optional.ofNullable(indexed);
+        }
+        return resolvedPaths.get(relativePath);
+    }
+
+    private ClasspathIndex buildIndex() throws IOException {
+        String base = basePath.toString();
+        if (base.isEmpty()) {
+            // Classpath roots cannot be reliably listed without a base path
+            return new ClasspathIndex(Map.of(), false);
+        }
+        Map<String, Path> index = new HashMap<>();
+        Enumeration<URL> roots = classLoader.getResources(base);
+        boolean complete = roots.hasMoreElements();
+        while (roots.hasMoreElements()) {
+            Path root = toPath(toUri(roots.nextElement(), base));
+            if (!Files.isDirectory(root)) {
+                complete = false;
+                continue;
+            }
+            try (Stream<Path> files = Files.walk(root)) {
+                files.filter(Files::isRegularFile)
+                        .forEach(file -> index.putIfAbsent(toRelativePath(root, file), file));
+            }
+        }
+        logger.debug("Indexed {} classpath templates under: {}", index.size(), base);
+        return new ClasspathIndex(index, complete);
+    }
+
+    private String toRelativePath(Path root, Path file) {
+        Path relativePath = basePath;
+        for (Path segment : root.relativize(file)) {
+            relativePath = relativePath.resolve(segment.toString());
         }
-        FileSystem fs = uri.toString().startsWith("jar:file:/")
-                ? initFileSystem(uri)
+        return relativePath.toString();
+    }
+
+    private Path resolveClassPathFile(String relativePath) {
+        URL url = classLoader.getResource(relativePath);
+        Path path = url != null
+                ? toPath(toUri(url, relativePath))
                 : null;
-        Path path = Path.of(uri);
-        return FileReader.readText(path)
-                .onErrorResume(NoSuchFileException.class, e -> Mono.empty())
-                .doFinally(it -> close(fs));
+        resolvedPaths.put(relativePath, Optional.ofNullable(path));
+        return path;
     }
 
-    private URI resolveClassPathFile(Path relativePath) {
+    private URI toUri(URL url, String relativePath) {
         try {
-            URL url = classLoader.getResource(relativePath.toString());
-            return url != null ? url.toURI() : null;
+            return url.toURI();
         } catch (URISyntaxException e) {
             throw new TemplateLoadingException("Could not resolve uri to classpath file with a template: " + relativePath);
         }
     }
 
+    private Path toPath(URI uri) {
+        String uriString = uri.toString();
+        int separatorIndex = uriString.indexOf(JAR_URI_SEPARATOR);
+        if (!uriString.startsWith("jar:file:/") || separatorIndex < 0) {
+            return Path.of(uri);
+        }
+        URI fileSystemUri = URI.create(uriString.substring(0, separatorIndex));
+        String decodedUri = uri.getSchemeSpecificPart();
+        String entry = decodedUri.substring(decodedUri.indexOf(JAR_URI_SEPARATOR) + 1);
+        return fileSystems.computeIfAbsent(fileSystemUri, this::initFileSystem)
+                .getPath(entry);
+    }
+
     private FileSystem initFileSystem(URI uri) {
         try {
             return FileSystems.getFileSystem(uri);
         } catch (FileSystemNotFoundException e) {
             try {
-                return FileSystems.newFileSystem(uri, Map.of("create", "true"));
+                FileSystem fileSystem = FileSystems.newFileSystem(uri, Map.of());
+                ownedFileSystems.add(fileSystem);
+                return fileSystem;
+            } catch (FileSystemAlreadyExistsException alreadyExistsException) {
+                return FileSystems.getFileSystem(uri);
             } catch (IOException ioException) {
                 throw new TemplateLoadingException("Could not create file system to read file from classpath: " + uri);
             }
         }
     }
 
-    private void close(FileSystem fileSystem) {
-        if (fileSystem != null) {
-            try {
-                fileSystem.close();
-            } catch (IOException e) {
-                throw new TemplateLoadingException("Could not close file system when reading template from classpath", e);
-            }
+    private static final class ClasspathIndex {
+        private final Map<String, Path> paths;
+        // Jars without directory entries do not list their templates, so lookups fall back to the classloader
+        // unless every root under the base path was indexed
+        private final boolean complete;
+
+        ClasspathIndex(Map<String, Path> paths, boolean complete) {
+            this.paths = paths;
+            this.complete = complete;
         }
     }
 }
@@ -1,18 +1,28 @@
 package com.coditory.freemarker.reactor.loader;
 
+import com.coditory.freemarker.reactor.ResolvedTemplate;
 import com.coditory.freemarker.reactor.TemplateKey;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.io.Closeable;
+import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Locale;
+import java.util.stream.Stream;
 
-public final class FileTemplateLoader implements TemplateLoader {
+import static com.coditory.freemarker.reactor.loader.TemplateFileNames.toTemplateKeys;
+
+public final class FileTemplateLoader implements TemplateLoader, Closeable {
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
     private final Path basePath;
     private final String fileExtension;
+    private final TemplateFileWatcher watcher;
 
     public FileTemplateLoader(String basePath) {
         this(Path.of("").resolve(basePath));
@@ -23,8 +33,15 @@ public final class FileTemplateLoader implements TemplateLoader {
     }
 
     public FileTemplateLoader(Path basePath, String fileExtension) {
+        this(basePath, fileExtension, false);
+    }
+
+    public FileTemplateLoader(Path basePath, String fileExtension, boolean watchChanges) {
         this.basePath = basePath;
         this.fileExtension = fileExtension;
+        this.watcher = watchChanges
+                ? new TemplateFileWatcher(basePath, fileExtension)
+                : null;
     }
 
     @Override
@@ -40,6 +57,49 @@ public final class FileTemplateLoader implements TemplateLoader {
                 }));
     }
 
+    @Override
+    public Mono<ResolvedTemplate> loadFirst(List<TemplateKey> keys) {
+        // candidates are checked in a single blocking task, only the first existing file is read
+        return Mono.fromCallable(() -> findFirstExisting(keys))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(key -> loadTemplate(key)
+                        .map(content -> new ResolvedTemplate(key, content)));
+    }
+
+    @Override
+    public Flux<TemplateKey> listTemplates() {
+        return Flux.using(
+                () -> Files.walk(basePath),
+                paths -> Flux.fromStream(paths
+                        .filter(Files::isRegularFile)
+                        .flatMap(path -> toTemplateKeys(basePath.relativize(path), fileExtension).stream())),
+                Stream::close
+        ).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public Flux<TemplateKey> changes() {
+        return watcher != null
+                ? watcher.changes()
+                : Flux.empty();
+    }
+
+    @Override
+    public void close() {
+        if (watcher != null) {
+            watcher.close();
+        }
+    }
+
+    private TemplateKey findFirstExisting(List<TemplateKey> keys) {
+        for (TemplateKey key : keys) {
+            if (Files.isRegularFile(generateFileName(key))) {
+                return key;
+            }
+        }
+        return null;
+    }
+
     private Path generateFileName(TemplateKey key) {
         String name = key.getName();
         Locale locale = key.getLocale();
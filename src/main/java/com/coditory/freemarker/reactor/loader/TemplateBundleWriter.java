@@ -0,0 +1,81 @@
+package com.coditory.freemarker.reactor.loader;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+public final class TemplateBundleWriter {
+    static final int MAGIC = 0x464D5242;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 3 * Integer.BYTES;
+    static final int ENTRY_SIZE = 4 * Integer.BYTES;
+
+    private TemplateBundleWriter() {
+    }
+
+    public static int write(Path templatesDirectory, Path bundleFile) throws IOException {
+        return write(templatesDirectory, bundleFile, ".ftl");
+    }
+
+    public static int write(Path templatesDirectory, Path bundleFile, String fileExtension) throws IOException {
+        Map<String, byte[]> templates = readTemplates(templatesDirectory, fileExtension);
+        List<byte[]> keys = new ArrayList<>(templates.size());
+        templates.keySet().forEach(key -> keys.add(key.getBytes(UTF_8)));
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + ENTRY_SIZE * templates.size());
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.putInt(templates.size());
+        long offset = header.capacity();
+        for (byte[] key : keys) {
+            offset += key.length;
+        }
+        long keyOffset = header.capacity();
+        int i = 0;
+        for (byte[] body : templates.values()) {
+            byte[] key = keys.get(i++);
+            if (offset + body.length > Integer.MAX_VALUE) {
+                throw new IOException("Template bundle exceeds maximal size of " + Integer.MAX_VALUE + " bytes");
+            }
+            header.putInt((int) keyOffset);
+            header.putInt(key.length);
+            header.putInt((int) offset);
+            header.putInt(body.length);
+            keyOffset += key.length;
+            offset += body.length;
+        }
+        try (OutputStream output = Files.newOutputStream(bundleFile)) {
+            output.write(header.array());
+            for (byte[] key : keys) {
+                output.write(key);
+            }
+            for (byte[] body : templates.values()) {
+                output.write(body);
+            }
+        }
+        return templates.size();
+    }
+
+    private static Map<String, byte[]> readTemplates(Path templatesDirectory, String fileExtension) throws IOException {
+        Map<String, byte[]> templates = new TreeMap<>();
+        try (Stream<Path> paths = Files.walk(templatesDirectory)) {
+            for (Path path : (Iterable<Path>) paths.filter(Files::isRegularFile)::iterator) {
+                String name = templatesDirectory.relativize(path).toString()
+                        .replace(path.getFileSystem().getSeparator(), "/");
+                if (name.endsWith(fileExtension)) {
+                    String key = name.substring(0, name.length() - fileExtension.length());
+                    templates.put(key, Files.readAllBytes(path));
+                }
+            }
+        }
+        return templates;
+    }
+}
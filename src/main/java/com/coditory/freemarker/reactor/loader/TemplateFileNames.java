@@ -0,0 +1,67 @@
+package com.coditory.freemarker.reactor.loader;
+
+import com.coditory.freemarker.reactor.TemplateKey;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+final class TemplateFileNames {
+    private static final Pattern LOCALIZED_NAME_PATTERN = Pattern.compile("(.+?)_([a-z]{2,3})(?:_([A-Z]{2}))?");
+
+    static List<TemplateKey> toTemplateKeys(Path relativePath, String fileExtension) {
+        String name = relativePath.toString().replace(relativePath.getFileSystem().getSeparator(), "/");
+        if (!name.endsWith(fileExtension)) {
+            return List.of();
+        }
+        return toTemplateKeys(name.substring(0, name.length() - fileExtension.length()));
+    }
+
+    static List<TemplateKey> toTemplateKeys(String name) {
+        List<TemplateKey> keys = new ArrayList<>();
+        addTemplateKeys(keys, null, name);
+        int moduleSeparator = name.indexOf('/');
+        if (moduleSeparator > 0) {
+            addTemplateKeys(keys, name.substring(0, moduleSeparator), name.substring(moduleSeparator + 1));
+        }
+        return keys;
+    }
+
+    static String toTemplateFileName(TemplateKey key) {
+        String name = key.getModule() != null
+                ? key.getModule() + "/" + key.getName()
+                : key.getName();
+        Locale locale = key.getLocale();
+        if (locale == null || locale.getLanguage().isEmpty()) {
+            return name;
+        }
+        if (!locale.getCountry().isEmpty()) {
+            return name + "_" + locale.getLanguage() + "_" + locale.getCountry();
+        }
+        return name + "_" + locale.getLanguage();
+    }
+
+    private static void addTemplateKeys(List<TemplateKey> keys, String module, String name) {
+        addTemplateKey(keys, module, name, null);
+        int nameStart = name.lastIndexOf('/') + 1;
+        Matcher matcher = LOCALIZED_NAME_PATTERN.matcher(name.substring(nameStart));
+        if (matcher.matches()) {
+            String baseName = name.substring(0, nameStart) + matcher.group(1);
+            Locale locale = matcher.group(3) != null
+                    ? new Locale(matcher.group(2), matcher.group(3))
+                    : new Locale(matcher.group(2));
+            addTemplateKey(keys, module, baseName, locale);
+        }
+    }
+
+    private static void addTemplateKey(List<TemplateKey> keys, String module, String name, Locale locale) {
+        try {
+            keys.add(new TemplateKey(module, name, locale));
+        } catch (IllegalArgumentException e) {
+            // file name is not a valid template name
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.coditory.freemarker.reactor.loader;
+
+import com.coditory.freemarker.reactor.TemplateKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import static com.coditory.freemarker.reactor.loader.TemplateFileNames.toTemplateKeys;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+final class TemplateFileWatcher implements Closeable {
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final Path basePath;
+    private final String fileExtension;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> directories = new ConcurrentHashMap<>();
+    private final Sinks.Many<TemplateKey> changes = Sinks.many().multicast().directBestEffort();
+
+    TemplateFileWatcher(Path basePath, String fileExtension) {
+        this.basePath = basePath.toAbsolutePath().normalize();
+        this.fileExtension = fileExtension;
+        try {
+            this.watchService = this.basePath.getFileSystem().newWatchService();
+            register(this.basePath);
+        } catch (IOException e) {
+            throw new TemplateLoadingException("Could not watch template files in: " + basePath, e);
+        }
+        Thread thread = new Thread(this::watch, "freemarker-reactor-template-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    Flux<TemplateKey> changes() {
+        return changes.asFlux();
+    }
+
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            throw new TemplateLoadingException("Could not close template file watcher", e);
+        }
+        changes.tryEmitComplete();
+    }
+
+    private void watch() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Path directory = directories.get(key);
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == OVERFLOW) {
+                    logger.debug("Template file events were lost. Invalidating all templates from: {}", basePath);
+                    emitAll(basePath);
+                } else if (directory != null) {
+                    handleEvent(event, directory.resolve((Path) event.context()));
+                }
+            }
+            if (!key.reset()) {
+                directories.remove(key);
+            }
+        }
+    }
+
+    private void handleEvent(WatchEvent<?> event, Path path) {
+        if (event.kind() == ENTRY_CREATE && Files.isDirectory(path)) {
+            try {
+                register(path);
+            } catch (IOException e) {
+                logger.warn("Could not watch template directory: " + path, e);
+            }
+            emitAll(path);
+        } else {
+            emit(path);
+        }
+    }
+
+    private void register(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.filter(Files::isDirectory)::iterator) {
+                WatchKey key = path.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+                directories.put(key, path);
+            }
+        }
+    }
+
+    private void emitAll(Path directory) {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.filter(Files::isRegularFile)
+                    .forEach(this::emit);
+        } catch (IOException e) {
+            logger.warn("Could not list template files in: " + directory, e);
+        }
+    }
+
+    private void emit(Path path) {
+        for (TemplateKey key : toTemplateKeys(basePath.relativize(path), fileExtension)) {
+            logger.trace("Detected template change: {}", key);
+            changes.tryEmitNext(key);
+        }
+    }
+}
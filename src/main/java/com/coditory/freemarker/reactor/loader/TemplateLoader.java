@@ -1,8 +1,27 @@
 package com.coditory.freemarker.reactor.loader;
 
+import com.coditory.freemarker.reactor.ResolvedTemplate;
 import com.coditory.freemarker.reactor.TemplateKey;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 public interface TemplateLoader {
     Mono<String> loadTemplate(TemplateKey key);
+
+    default Mono<ResolvedTemplate> loadFirst(List<TemplateKey> keys) {
+        return Flux.fromIterable(keys)
+                .concatMap(key -> loadTemplate(key)
+                        .map(content -> new ResolvedTemplate(key, content)))
+                .next();
+    }
+
+    default Flux<TemplateKey> listTemplates() {
+        return Flux.empty();
+    }
+
+    default Flux<TemplateKey> changes() {
+        return Flux.empty();
+    }
 }
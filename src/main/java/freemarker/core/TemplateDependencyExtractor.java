@@ -0,0 +1,115 @@
+package freemarker.core;
+
+import freemarker.template.Template;
+import freemarker.template.TemplateBooleanModel;
+import freemarker.template.TemplateException;
+import freemarker.template.TemplateModel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+
+public class TemplateDependencyExtractor {
+    public static TemplateDependencies extractDependencies(Template template, Set<String> directiveNames) {
+        requireNonNull(template);
+        requireNonNull(directiveNames);
+        TemplateDependencies dependencies = new TemplateDependencies();
+        TemplateElement root = template.getRootTreeNode();
+        if (root != null) {
+            extract(root, directiveNames, dependencies);
+        }
+        return dependencies;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static void extract(TemplateElement element, Set<String> directiveNames, TemplateDependencies dependencies) {
+        if (element instanceof UnifiedCall) {
+            extract((UnifiedCall) element, directiveNames, dependencies);
+        }
+        for (int i = 0; i < element.getChildCount(); ++i) {
+            TemplateElement child = (TemplateElement) element.getChildAt(i);
+            if (child != null) {
+                extract(child, directiveNames, dependencies);
+            }
+        }
+    }
+
+    private static void extract(UnifiedCall call, Set<String> directiveNames, TemplateDependencies dependencies) {
+        Expression nameExpression = UnifiedCallArguments.getNameExpression(call);
+        if (nameExpression == null || !directiveNames.contains(nameExpression.getCanonicalForm())) {
+            return;
+        }
+        Map<String, Expression> namedArgs = UnifiedCallArguments.getNamedArgs(call);
+        List<Expression> positionalArgs = UnifiedCallArguments.getPositionalArgs(call);
+        Expression name = namedArgs != null && namedArgs.containsKey("name")
+                ? namedArgs.get("name")
+                : positionalArgs != null && !positionalArgs.isEmpty() ? positionalArgs.get(0) : null;
+        String literalName = evalLiteral(name, String.class);
+        if (literalName == null) {
+            dependencies.dynamic = true;
+            return;
+        }
+        Expression parse = namedArgs != null
+                ? namedArgs.get("parse")
+                : null;
+        boolean parsed = parse == null || Boolean.TRUE.equals(evalLiteral(parse, Boolean.class));
+        dependencies.dependencies.add(new TemplateDependency(literalName, parsed));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T evalLiteral(Expression expression, Class<T> type) {
+        if (expression == null || !expression.isLiteral()) {
+            return null;
+        }
+        try {
+            TemplateModel value = expression.eval(null);
+            if (type == Boolean.class && value instanceof TemplateBooleanModel) {
+                return (T) Boolean.valueOf(((TemplateBooleanModel) value).getAsBoolean());
+            }
+            if (type == String.class && expression instanceof StringLiteral && value != null) {
+                return (T) value.toString();
+            }
+            return null;
+        } catch (TemplateException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    public static final class TemplateDependencies {
+        private final List<TemplateDependency> dependencies = new ArrayList<>();
+        private boolean dynamic;
+
+        private TemplateDependencies() {
+        }
+
+        public List<TemplateDependency> getDependencies() {
+            return unmodifiableList(dependencies);
+        }
+
+        public boolean hasDynamicDependencies() {
+            return dynamic;
+        }
+    }
+
+    public static final class TemplateDependency {
+        private final String name;
+        private final boolean parsed;
+
+        private TemplateDependency(String name, boolean parsed) {
+            this.name = name;
+            this.parsed = parsed;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isParsed() {
+            return parsed;
+        }
+    }
+}
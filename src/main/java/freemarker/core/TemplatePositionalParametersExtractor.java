@@ -3,23 +3,15 @@ package freemarker.core;
 import freemarker.template.TemplateException;
 import freemarker.template.TemplateModel;
 
-import java.lang.reflect.Field;
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static java.util.Collections.unmodifiableList;
 
 public class TemplatePositionalParametersExtractor {
-    private static final Field POSITIONAL_ARGS_FIELD;
-
-    static {
-        try {
-            POSITIONAL_ARGS_FIELD = UnifiedCall.class.getDeclaredField("positionalArgs");
-            POSITIONAL_ARGS_FIELD.setAccessible(true);
-        } catch (NoSuchFieldException e) {
-            throw new IllegalStateException("Could not create TemplatePositionalParametersExtractor", e);
-        }
-    }
+    // per call site marker for arguments that have to be evaluated on every call
+    private static final Object NON_CONSTANT_ARGS = new Object();
 
     public static List<TemplateModel> extractPositionalParams(Environment env) throws TemplateException {
         DirectiveCallPlace directiveCallPlace = env.getCurrentDirectiveCallPlace();
@@ -28,22 +20,50 @@ public class TemplatePositionalParametersExtractor {
                 : List.of();
     }
 
-    @SuppressWarnings({"deprecation", "unchecked"})
+    @SuppressWarnings("unchecked")
     private static List<TemplateModel> extract(Environment env, UnifiedCall call) throws TemplateException {
-        List<Expression> expressions;
-        try {
-            expressions = (List<Expression>) POSITIONAL_ARGS_FIELD.get(call);
-        } catch (Exception e) {
-            throw new IllegalStateException("Could not extract positional arguments from call", e);
-        }
+        List<Expression> expressions = UnifiedCallArguments.getPositionalArgs(call);
         if (expressions == null || expressions.isEmpty()) {
             return List.of();
         }
-        List<TemplateModel> results = new ArrayList<>();
+        Object constants = getConstants(env, call, expressions);
+        return constants != NON_CONSTANT_ARGS
+                ? (List<TemplateModel>) constants
+                : evaluate(env, expressions);
+    }
+
+    private static Object getConstants(Environment env, UnifiedCall call, List<Expression> expressions) throws TemplateException {
+        // Literal arguments evaluate to the same models on every call,
+        // so they are evaluated once and kept on the call site
+        try {
+            return call.getOrCreateCustomData(
+                    TemplatePositionalParametersExtractor.class,
+                    () -> isLiteral(expressions) ? evaluate(env, expressions) : NON_CONSTANT_ARGS);
+        } catch (CallPlaceCustomDataInitializationException e) {
+            if (e.getCause() instanceof TemplateException) {
+                throw (TemplateException) e.getCause();
+            }
+            throw new IllegalStateException("Could not evaluate positional arguments of call", e);
+        }
+    }
+
+    private static boolean isLiteral(List<Expression> expressions) {
         for (Expression expression : expressions) {
-            TemplateModel result = expression.eval(env);
-            results.add(result);
+            if (!expression.isLiteral()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<TemplateModel> evaluate(Environment env, List<Expression> expressions) throws TemplateException {
+        if (expressions.size() == 1) {
+            return Collections.singletonList(expressions.get(0).eval(env));
+        }
+        TemplateModel[] results = new TemplateModel[expressions.size()];
+        for (int i = 0; i < results.length; ++i) {
+            results[i] = expressions.get(i).eval(env);
         }
-        return unmodifiableList(results);
+        return unmodifiableList(Arrays.asList(results));
     }
 }
@@ -0,0 +1,108 @@
+package freemarker.core;
+
+import freemarker.template.Template;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static java.util.Collections.unmodifiableSet;
+import static java.util.Objects.requireNonNull;
+
+public class TemplateVariablesExtractor {
+    private static final Set<String> DYNAMIC_BUILT_INS = Set.of("eval", "eval_json", "evalJson", "interpret");
+    private static final Set<String> DYNAMIC_BUILTIN_VARIABLES = Set.of(
+            ".vars", ".data_model", ".dataModel", ".globals", ".main", ".namespace", ".locals");
+
+    public static TemplateVariables extractVariables(Template template) {
+        requireNonNull(template);
+        TemplateVariables variables = new TemplateVariables();
+        TemplateElement root = template.getRootTreeNode();
+        if (root != null) {
+            extract(root, variables);
+        }
+        return variables;
+    }
+
+    private static void extract(TemplateObject object, TemplateVariables variables) {
+        if (variables.dynamic) {
+            return;
+        }
+        if (object instanceof Identifier) {
+            variables.names.add(((Identifier) object).getName());
+        } else if (isDynamic(object)) {
+            variables.dynamic = true;
+            return;
+        } else if (object instanceof IfBlock || object instanceof ConditionalBlock) {
+            extractReachableBranches((TemplateElement) object, variables);
+            return;
+        }
+        for (int i = 0; i < object.getParameterCount(); ++i) {
+            Object parameter = object.getParameterValue(i);
+            if (parameter instanceof TemplateObject) {
+                extract((TemplateObject) parameter, variables);
+            }
+        }
+        if (object instanceof TemplateElement) {
+            extractChildren((TemplateElement) object, variables);
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private static void extractChildren(TemplateElement element, TemplateVariables variables) {
+        for (int i = 0; i < element.getChildCount(); ++i) {
+            TemplateElement child = (TemplateElement) element.getChildAt(i);
+            if (child != null) {
+                extract(child, variables);
+            }
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private static void extractReachableBranches(TemplateElement element, TemplateVariables variables) {
+        // Only literal true and false conditions are pruned,
+        // any other condition is not evaluated, so all of its branches are treated as reachable
+        int branches = element instanceof IfBlock ? element.getChildCount() : 1;
+        for (int i = 0; i < branches; ++i) {
+            TemplateElement branch = element instanceof IfBlock
+                    ? (TemplateElement) element.getChildAt(i)
+                    : element;
+            Object condition = branch.getParameterValue(0);
+            if (condition instanceof BooleanLiteral) {
+                if ("true".equals(((BooleanLiteral) condition).getCanonicalForm())) {
+                    extractChildren(branch, variables);
+                    return;
+                }
+                continue;
+            }
+            if (condition instanceof TemplateObject) {
+                extract((TemplateObject) condition, variables);
+            }
+            extractChildren(branch, variables);
+        }
+    }
+
+    private static boolean isDynamic(TemplateObject object) {
+        // Native includes and imports are not discovered statically,
+        // and the rest may read any variable by a computed name
+        return object instanceof Include
+                || object instanceof LibraryLoad
+                || (object instanceof BuiltIn && DYNAMIC_BUILT_INS.contains(((BuiltIn) object).key))
+                || (object instanceof BuiltinVariable && DYNAMIC_BUILTIN_VARIABLES.contains(((BuiltinVariable) object).getCanonicalForm()));
+    }
+
+    public static final class TemplateVariables {
+        private final Set<String> names = new HashSet<>();
+        private boolean dynamic;
+
+        private TemplateVariables() {
+        }
+
+        public Set<String> getNames() {
+            return unmodifiableSet(names);
+        }
+
+        public boolean hasDynamicVariables() {
+            return dynamic;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package freemarker.core;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.List;
+import java.util.Map;
+
+// Reads private UnifiedCall fields, shared by the extractors
+final class UnifiedCallArguments {
+    private static final VarHandle NAME_EXPRESSION;
+    private static final VarHandle NAMED_ARGS;
+    private static final VarHandle POSITIONAL_ARGS;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(UnifiedCall.class, MethodHandles.lookup());
+            NAME_EXPRESSION = lookup.findVarHandle(UnifiedCall.class, "nameExp", Expression.class);
+            NAMED_ARGS = lookup.findVarHandle(UnifiedCall.class, "namedArgs", Map.class);
+            POSITIONAL_ARGS = lookup.findVarHandle(UnifiedCall.class, "positionalArgs", List.class);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not access UnifiedCall arguments", e);
+        }
+    }
+
+    private UnifiedCallArguments() {
+    }
+
+    static Expression getNameExpression(UnifiedCall call) {
+        return (Expression) NAME_EXPRESSION.get(call);
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, Expression> getNamedArgs(UnifiedCall call) {
+        return (Map<String, Expression>) NAMED_ARGS.get(call);
+    }
+
+    @SuppressWarnings("unchecked")
+    static List<Expression> getPositionalArgs(UnifiedCall call) {
+        return (List<Expression>) POSITIONAL_ARGS.get(call);
+    }
+}
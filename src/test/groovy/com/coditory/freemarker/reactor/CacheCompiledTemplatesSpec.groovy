@@ -0,0 +1,54 @@
+package com.coditory.freemarker.reactor
+
+import com.coditory.freemarker.reactor.base.InMemoryFreeMarkerTemplateLoader
+import spock.lang.Specification
+
+class CacheCompiledTemplatesSpec extends Specification {
+    InMemoryFreeMarkerTemplateLoader templateLoader = new InMemoryFreeMarkerTemplateLoader()
+
+    def setup() {
+        templateLoader.setResponse("a", "Template: a")
+        templateLoader.setResponse("b", "Template: b")
+    }
+
+    def "should not share template instances by default"() {
+        given:
+            TemplateFactory engine = TemplateFactory.builder()
+                    .setTemplateLoader(templateLoader)
+                    .build()
+        when:
+            Template first = engine.createTemplate("a").block()
+            Template second = engine.createTemplate("a").block()
+        then:
+            !first.is(second)
+    }
+
+    def "should share template instance per request"() {
+        given:
+            TemplateFactory engine = TemplateFactory.builder()
+                    .setTemplateLoader(templateLoader)
+                    .setCompiledTemplateCacheSize(10)
+                    .build()
+        when:
+            Template first = engine.createTemplate("a").block()
+            Template second = engine.createTemplate("a").block()
+            Template localized = engine.createTemplate("a", Locale.GERMANY).block()
+        then:
+            first.is(second)
+            !first.is(localized)
+            second.process().block() == "Template: a"
+    }
+
+    def "should evict least recently used template instance"() {
+        given:
+            TemplateFactory engine = TemplateFactory.builder()
+                    .setTemplateLoader(templateLoader)
+                    .setCompiledTemplateCacheSize(1)
+                    .build()
+            Template first = engine.createTemplate("a").block()
+        when:
+            engine.createTemplate("b").block()
+        then:
+            !engine.createTemplate("a").block().is(first)
+    }
+}
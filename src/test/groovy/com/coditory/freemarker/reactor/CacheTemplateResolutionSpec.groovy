@@ -0,0 +1,84 @@
+package com.coditory.freemarker.reactor
+
+import com.coditory.freemarker.reactor.base.InMemoryFreeMarkerTemplateLoader
+import reactor.core.publisher.Mono
+import spock.lang.Specification
+
+class CacheTemplateResolutionSpec extends Specification {
+    InMemoryFreeMarkerTemplateLoader templateLoader = new InMemoryFreeMarkerTemplateLoader()
+
+    def "should cache resolved template per request"() {
+        given:
+            TemplateFactory engine = TemplateFactory.builder()
+                    .setTemplateLoader(templateLoader)
+                    .setTemplateResolutionCache(Cache.concurrentMapCache())
+                    .build()
+            templateLoader.setResponse("page", "Template: page")
+            engine.createTemplate("page", Locale.GERMANY).block()
+            int requestCount = templateLoader.requestCount
+        when:
+            Template template = engine.createTemplate("page", Locale.GERMANY).block()
+        then:
+            template.process().block() == "Template: page"
+            templateLoader.requestCount == requestCount
+    }
+
+    def "should cache missing template per request"() {
+        given:
+            TemplateFactory engine = TemplateFactory.builder()
+                    .setTemplateLoader(templateLoader)
+                    .setTemplateResolutionCache(Cache.concurrentMapCache())
+                    .build()
+            engine.createTemplate("missing", Locale.GERMANY).onErrorResume { Mono.empty() }.block()
+            int requestCount = templateLoader.requestCount
+        when:
+            engine.createTemplate("missing", Locale.GERMANY).block()
+        then:
+            thrown(TemplateCreationException)
+            templateLoader.requestCount == requestCount
+    }
+
+    def "should cache resolved template in template key cache"() {
+        given:
+            TemplateFactory engine = TemplateFactory.builder()
+                    .setTemplateLoader(templateLoader)
+                    .setTemplateCache(Cache.concurrentMapCache())
+                    .build()
+            templateLoader.setResponse("page", "Template: page")
+            engine.createTemplate("page", Locale.GERMANY).block()
+            int requestCount = templateLoader.requestCount
+        when:
+            engine.createTemplate("page", Locale.GERMANY).block()
+        then:
+            templateLoader.requestCount == requestCount
+    }
+
+    def "should not cache resolved templates of uncached loader by default"() {
+        given:
+            TemplateFactory engine = TemplateFactory.builder()
+                    .setTemplateLoader(templateLoader)
+                    .build()
+            templateLoader.setResponse("page", "Template: page")
+            engine.createTemplate("page").block()
+        when:
+            templateLoader.setResponse("page", "Template: edited")
+            Template template = engine.createTemplate("page").block()
+        then:
+            template.process().block() == "Template: edited"
+    }
+
+    def "should not cache resolved templates when cache is removed"() {
+        given:
+            TemplateFactory engine = TemplateFactory.builder()
+                    .setTemplateLoader(templateLoader)
+                    .removeCache()
+                    .build()
+            templateLoader.setResponse("page", "Template: page")
+            engine.createTemplate("page").block()
+            int requestCount = templateLoader.requestCount
+        when:
+            engine.createTemplate("page").block()
+        then:
+            templateLoader.requestCount > requestCount
+    }
+}
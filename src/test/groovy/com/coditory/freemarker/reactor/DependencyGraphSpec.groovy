@@ -0,0 +1,76 @@
+package com.coditory.freemarker.reactor
+
+import spock.lang.Specification
+
+class DependencyGraphSpec extends Specification {
+    DependencyGraph graph = new DependencyGraph()
+
+    def "should detect self dependency"() {
+        given:
+            int a = graph.addNode()
+        expect:
+            !graph.addEdge(a, a)
+    }
+
+    def "should detect cycle added against topological order"() {
+        given:
+            int a = graph.addNode()
+            int b = graph.addNode()
+            int c = graph.addNode()
+            graph.addEdge(c, b)
+            graph.addEdge(b, a)
+        expect:
+            !graph.addEdge(a, c)
+            graph.addEdge(c, a)
+            !graph.hasEdge(a, c)
+    }
+
+    def "should accept diamond dependencies"() {
+        given:
+            int a = graph.addNode()
+            int b = graph.addNode()
+            int c = graph.addNode()
+            int d = graph.addNode()
+        expect:
+            graph.addEdge(d, b)
+            graph.addEdge(d, c)
+            graph.addEdge(b, a)
+            graph.addEdge(c, a)
+            graph.addEdge(d, a)
+            !graph.addEdge(a, d)
+    }
+
+    def "should detect the same cycles as full graph search"() {
+        given:
+            Random random = new Random(42)
+            int size = 200
+            (0..<size).each { graph.addNode() }
+            Map<Integer, Set<Integer>> edges = [:].withDefault { [] as Set }
+        expect:
+            (0..<2000).every {
+                int from = random.nextInt(size)
+                int to = random.nextInt(size)
+                boolean expected = from != to && !reachable(edges, to, from)
+                boolean added = graph.addEdge(from, to)
+                if (added) {
+                    edges[from] << to
+                }
+                added == expected
+            }
+    }
+
+    private static boolean reachable(Map<Integer, Set<Integer>> edges, int from, int to) {
+        Set<Integer> visited = [] as Set
+        List<Integer> stack = [from]
+        while (!stack.isEmpty()) {
+            int node = stack.remove(stack.size() - 1)
+            if (node == to) {
+                return true
+            }
+            if (visited.add(node)) {
+                stack.addAll(edges[node])
+            }
+        }
+        return false
+    }
+}
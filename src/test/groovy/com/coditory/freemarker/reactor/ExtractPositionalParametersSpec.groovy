@@ -0,0 +1,41 @@
+package com.coditory.freemarker.reactor
+
+import com.coditory.freemarker.reactor.base.InMemoryFreeMarkerTemplateLoader
+import spock.lang.Specification
+
+class ExtractPositionalParametersSpec extends Specification {
+    InMemoryFreeMarkerTemplateLoader templateLoader = new InMemoryFreeMarkerTemplateLoader()
+    TemplateFactory engine = TemplateFactory.builder()
+            .setTemplateLoader(templateLoader)
+            .build()
+
+    def "should reuse literal positional parameters on repeated calls"() {
+        given:
+            templateLoader.setResponse("a", "<#list 1..3 as i><@include \"b\"/></#list>")
+            templateLoader.setResponse("b", "b")
+            Template template = engine.createTemplate("a").block()
+        expect:
+            template.process().block() == "bbb"
+            template.process().block() == "bbb"
+    }
+
+    def "should evaluate dynamic positional parameters on each call"() {
+        given:
+            templateLoader.setResponse("a", "<#list names as name><@include name/></#list>")
+            templateLoader.setResponse("b", "b")
+            templateLoader.setResponse("c", "c")
+            Template template = engine.createTemplate("a").block()
+        expect:
+            template.process([names: ["b", "c", "b"]]).block() == "bcb"
+            template.process([names: ["c"]]).block() == "c"
+    }
+
+    def "should pass multiple literal positional parameters"() {
+        given:
+            templateLoader.setResponse("a", "<#list 1..2 as i><@import \"c\" \"lib\"/><@lib.greet/></#list>")
+            templateLoader.setResponse("c", "<#macro greet>c</#macro>")
+            Template template = engine.createTemplate("a").block()
+        expect:
+            template.process().block() == "cc"
+    }
+}
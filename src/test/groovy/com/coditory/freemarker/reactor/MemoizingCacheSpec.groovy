@@ -0,0 +1,61 @@
+package com.coditory.freemarker.reactor
+
+import reactor.core.publisher.Mono
+import spock.lang.Specification
+
+import java.util.concurrent.atomic.AtomicInteger
+
+class MemoizingCacheSpec extends Specification {
+    Cache<String, String> cache = Cache.concurrentMapCache()
+    AtomicInteger loads = new AtomicInteger()
+
+    def "should memoize loaded value"() {
+        when:
+            String first = cache.getOrLoad("a", { load(Mono.just("A")) }).block()
+            String second = cache.getOrLoad("a", { load(Mono.just("B")) }).block()
+        then:
+            first == "A"
+            second == "A"
+            loads.get() == 1
+    }
+
+    def "should memoize empty result"() {
+        when:
+            String first = cache.getOrLoad("a", { load(Mono.empty()) }).block()
+            String second = cache.getOrLoad("a", { load(Mono.just("B")) }).block()
+        then:
+            first == null
+            second == null
+            loads.get() == 1
+    }
+
+    def "should share in-flight load between subscribers"() {
+        given:
+            Mono<String> cached = cache.getOrLoad("a", { load(Mono.just("A")) })
+        when:
+            List<String> results = [cached, cached, cached]
+                    .collect { it.block() }
+        then:
+            results == ["A", "A", "A"]
+            loads.get() == 1
+    }
+
+    def "should evict failed load"() {
+        when:
+            cache.getOrLoad("a", { load(Mono.error(new RuntimeException("Failed"))) }).block()
+        then:
+            thrown(RuntimeException)
+        when:
+            String result = cache.getOrLoad("a", { load(Mono.just("A")) }).block()
+        then:
+            result == "A"
+            loads.get() == 2
+    }
+
+    private Mono<String> load(Mono<String> result) {
+        return Mono.defer {
+            loads.incrementAndGet()
+            return result
+        }
+    }
+}
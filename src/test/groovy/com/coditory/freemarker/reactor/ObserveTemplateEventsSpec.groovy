@@ -0,0 +1,125 @@
+package com.coditory.freemarker.reactor
+
+import com.coditory.freemarker.reactor.TemplateListener.CacheType
+import com.coditory.freemarker.reactor.base.InMemoryFreeMarkerTemplateLoader
+import reactor.core.publisher.Mono
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+
+class ObserveTemplateEventsSpec extends Specification {
+    InMemoryFreeMarkerTemplateLoader templateLoader = new InMemoryFreeMarkerTemplateLoader()
+    RecordingTemplateListener listener = new RecordingTemplateListener()
+    TemplateFactory engine = TemplateFactory.builder()
+            .setTemplateLoader(templateLoader)
+            .setCompiledTemplateCacheSize(10)
+            .addTemplateListener(listener)
+            .build()
+
+    def "should report template loading, resolution, parsing and creation"() {
+        given:
+            templateLoader.setResponse("a/_index", "<@include 'b'/>")
+            templateLoader.setResponse("b", "Template: b")
+        when:
+            engine.createTemplate("a").block()
+        then:
+            listener.events.contains("loaded a false")
+            listener.events.contains("loaded a/_index true")
+            listener.events.contains("resolved a a/_index 1")
+            listener.events.contains("parsed a/_index")
+            listener.events.contains("created a/_index 1")
+            listener.durations.every { it >= 0 }
+    }
+
+    def "should report missing template with number of probed keys"() {
+        when:
+            engine.createTemplate("x").onErrorResume { Mono.empty() }.block()
+        then:
+            listener.events.contains("loaded x false")
+            listener.events.contains("loaded x/_index false")
+            listener.events.contains("resolved x null 2")
+    }
+
+    def "should report cache hits and misses"() {
+        given:
+            templateLoader.setResponse("a", "Template: a")
+        when:
+            engine.createTemplate("a").block()
+            engine.createTemplate("a").block()
+        then:
+            listener.events.findAll { it == "cache COMPILED_TEMPLATES false" }.size() == 1
+            listener.events.findAll { it == "cache COMPILED_TEMPLATES true" }.size() == 1
+            listener.events.contains("cache RESOLVED_TEMPLATES false")
+            listener.events.contains("cache PARSED_TEMPLATES false")
+    }
+
+    def "should report render passes and output length"() {
+        given:
+            templateLoader.setResponse("a", "<@include name/>")
+            templateLoader.setResponse("b", "Template: b")
+            Template template = engine.createTemplate("a").block()
+        when:
+            template.process([name: "b"]).block()
+            template.processToFlux([name: "b"], StandardCharsets.UTF_8).blockLast()
+        then:
+            // first render discovers the dynamic include, streaming reuses the resolved dependency
+            listener.events.findAll { it == "processed a 2 11" }.size() == 1
+            listener.events.findAll { it == "processed a 1 11" }.size() == 1
+    }
+
+    def "should notify all registered listeners"() {
+        given:
+            RecordingTemplateListener other = new RecordingTemplateListener()
+            TemplateFactory engine = TemplateFactory.builder()
+                    .setTemplateLoader(templateLoader)
+                    .addTemplateListener(listener)
+                    .addTemplateListener(other)
+                    .build()
+            templateLoader.setResponse("a", "Template: a")
+        when:
+            engine.createTemplate("a").block().process().block()
+        then:
+            listener.events == other.events
+            listener.events.contains("processed a 1 11")
+    }
+
+    static class RecordingTemplateListener implements TemplateListener {
+        List<String> events = Collections.synchronizedList([])
+        List<Long> durations = Collections.synchronizedList([])
+
+        @Override
+        void onTemplateLoaded(TemplateKey key, boolean found, long durationNanos) {
+            record("loaded ${key.name} $found", durationNanos)
+        }
+
+        @Override
+        void onTemplateResolved(TemplateRequest request, TemplateKey resolvedKey, int fallbackDepth, long durationNanos) {
+            record("resolved ${request.name} ${resolvedKey?.name} $fallbackDepth", durationNanos)
+        }
+
+        @Override
+        void onTemplateParsed(TemplateKey key, long durationNanos) {
+            record("parsed ${key.name}", durationNanos)
+        }
+
+        @Override
+        void onTemplateCreated(TemplateKey key, int dependencies, long durationNanos) {
+            record("created ${key.name} $dependencies", durationNanos)
+        }
+
+        @Override
+        void onTemplateProcessed(TemplateKey key, int renderPasses, long outputLength, long durationNanos) {
+            record("processed ${key.name} $renderPasses $outputLength", durationNanos)
+        }
+
+        @Override
+        void onCacheAccess(CacheType cacheType, boolean hit) {
+            events.add("cache $cacheType $hit".toString())
+        }
+
+        private void record(String event, long durationNanos) {
+            events.add(event)
+            durations.add(durationNanos)
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.coditory.freemarker.reactor
+
+import com.coditory.freemarker.reactor.base.InMemoryFreeMarkerTemplateLoader
+import reactor.core.scheduler.Scheduler
+import reactor.core.scheduler.Schedulers
+import spock.lang.Specification
+
+import java.time.Duration
+
+class OffloadTemplateRenderingSpec extends Specification {
+    InMemoryFreeMarkerTemplateLoader templateLoader = new InMemoryFreeMarkerTemplateLoader()
+    Scheduler renderScheduler = Schedulers.newParallel("template-render", 2)
+
+    def setup() {
+        templateLoader.setResponse("a", "\${thread}")
+    }
+
+    def cleanup() {
+        renderScheduler.dispose()
+    }
+
+    def "should render on subscribing thread by default"() {
+        given:
+            Template template = createTemplate(TemplateFactory.builder())
+        expect:
+            render(template) == Thread.currentThread().name
+    }
+
+    def "should render on configured scheduler"() {
+        given:
+            Template template = createTemplate(TemplateFactory.builder()
+                    .setRenderScheduler(renderScheduler))
+        expect:
+            render(template).startsWith("template-render")
+    }
+
+    def "should render fast templates on subscribing thread"() {
+        given:
+            Template template = createTemplate(TemplateFactory.builder()
+                    .setRenderScheduler(renderScheduler, Duration.ofHours(1)))
+        expect:
+            render(template) == Thread.currentThread().name
+            render(template) == Thread.currentThread().name
+    }
+
+    def "should offload template once its render time passes threshold"() {
+        given:
+            Template template = createTemplate(TemplateFactory.builder()
+                    .setRenderScheduler(renderScheduler, Duration.ofNanos(1)))
+        expect:
+            render(template) == Thread.currentThread().name
+            render(template).startsWith("template-render")
+    }
+
+    def "should reject negative threshold"() {
+        when:
+            TemplateFactory.builder()
+                    .setRenderScheduler(renderScheduler, Duration.ofMillis(-1))
+        then:
+            thrown(IllegalArgumentException)
+    }
+
+    private Template createTemplate(TemplateFactoryBuilder builder) {
+        return builder
+                .setTemplateLoader(templateLoader)
+                .build()
+                .createTemplate("a")
+                .block()
+    }
+
+    private static String render(Template template) {
+        return template.process([thread: new ThreadProbe()]).block()
+    }
+
+    static class ThreadProbe {
+        @Override
+        String toString() {
+            return Thread.currentThread().name
+        }
+    }
+}
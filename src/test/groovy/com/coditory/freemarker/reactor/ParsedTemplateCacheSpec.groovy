@@ -0,0 +1,58 @@
+package com.coditory.freemarker.reactor
+
+import freemarker.template.Configuration
+import spock.lang.Specification
+
+class ParsedTemplateCacheSpec extends Specification {
+    Configuration configuration = new Configuration(Configuration.VERSION_2_3_31)
+    ParsedTemplateCache cache = new ParsedTemplateCache(configuration, Set.of("include", "import"), 2)
+
+    def "should parse template once per content version"() {
+        given:
+            TemplateKey key = new TemplateKey(null, "a", null)
+        when:
+            freemarker.template.Template first = cache.getOrParse(new ResolvedTemplate(key, "A"), true)
+            freemarker.template.Template second = cache.getOrParse(new ResolvedTemplate(key, "A"), true)
+            freemarker.template.Template changed = cache.getOrParse(new ResolvedTemplate(key, "B"), true)
+        then:
+            first.is(second)
+            !first.is(changed)
+    }
+
+    def "should distinguish parsed and plain text templates"() {
+        given:
+            ResolvedTemplate resolved = new ResolvedTemplate(new TemplateKey(null, "a", null), "\${x}")
+        when:
+            freemarker.template.Template parsed = cache.getOrParse(resolved, true)
+            freemarker.template.Template plain = cache.getOrParse(resolved, false)
+        then:
+            !parsed.is(plain)
+        and:
+            StringWriter writer = new StringWriter()
+            plain.process([:], writer)
+            writer.toString() == "\${x}"
+    }
+
+    def "should evict least recently used template"() {
+        given:
+            ResolvedTemplate a = new ResolvedTemplate(new TemplateKey(null, "a", null), "A")
+            ResolvedTemplate b = new ResolvedTemplate(new TemplateKey(null, "b", null), "B")
+            ResolvedTemplate c = new ResolvedTemplate(new TemplateKey(null, "c", null), "C")
+            freemarker.template.Template parsedA = cache.getOrParse(a, true)
+            cache.getOrParse(b, true)
+        when:
+            cache.getOrParse(c, true)
+        then:
+            !cache.getOrParse(a, true).is(parsedA)
+    }
+
+    def "should reuse parsed template for equal content from a different instance"() {
+        given:
+            TemplateKey key = new TemplateKey(null, "a", null)
+            freemarker.template.Template first = cache.getOrParse(new ResolvedTemplate(key, "A"), true)
+        when:
+            freemarker.template.Template second = cache.getOrParse(new ResolvedTemplate(key, new String("A")), true)
+        then:
+            first.is(second)
+    }
+}
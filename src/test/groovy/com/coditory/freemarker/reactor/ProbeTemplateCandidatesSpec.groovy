@@ -0,0 +1,77 @@
+package com.coditory.freemarker.reactor
+
+import com.coditory.freemarker.reactor.base.InMemoryFreeMarkerTemplateLoader
+import com.coditory.freemarker.reactor.loader.TemplateLoader
+import reactor.core.publisher.Mono
+import spock.lang.Specification
+
+import java.time.Duration
+
+class ProbeTemplateCandidatesSpec extends Specification {
+    InMemoryFreeMarkerTemplateLoader templateLoader = new InMemoryFreeMarkerTemplateLoader()
+
+    def "should probe candidates sequentially by default"() {
+        given:
+            templateLoader.setResponse(new TemplateKey(null, "a", new Locale("de")), "Template: a_de")
+            TemplateFactory engine = TemplateFactory.builder()
+                    .setTemplateLoader(templateLoader)
+                    .build()
+        when:
+            String result = engine.createTemplate("a", Locale.GERMANY).block().process().block()
+        then:
+            result == "Template: a_de"
+            // a_de_DE, a_de_DE/_index, a_de
+            templateLoader.requestCount == 3
+    }
+
+    def "should resolve highest priority candidate with parallel probes"() {
+        given:
+            templateLoader.setResponse(
+                    new TemplateKey(null, "a", new Locale("de")),
+                    Mono.just("Template: a_de").delayElement(Duration.ofMillis(100)))
+            templateLoader.setResponse("a", "Template: a")
+            TemplateFactory engine = TemplateFactory.builder()
+                    .setTemplateLoader(templateLoader)
+                    .setTemplateProbeParallelism(6)
+                    .build()
+        when:
+            String result = engine.createTemplate("a", Locale.GERMANY).block().process().block()
+        then:
+            result == "Template: a_de"
+    }
+
+    def "should resolve template and its dependencies with batched lookups"() {
+        given:
+            templateLoader.setResponse(new TemplateKey(null, "a", new Locale("de")), "a(<@include 'b'/>)")
+            templateLoader.setResponse("b", "b")
+            List<List<TemplateKey>> lookups = []
+            TemplateLoader batchingLoader = new TemplateLoader() {
+                @Override
+                Mono<String> loadTemplate(TemplateKey key) {
+                    throw new UnsupportedOperationException()
+                }
+
+                @Override
+                Mono<ResolvedTemplate> loadFirst(List<TemplateKey> keys) {
+                    lookups.add(keys)
+                    return templateLoader.loadFirst(keys)
+                }
+            }
+            TemplateFactory engine = TemplateFactory.builder()
+                    .setTemplateLoader(batchingLoader)
+                    .build()
+        when:
+            String result = engine.createTemplate("a", Locale.GERMANY).block().process().block()
+        then:
+            result == "a(b)"
+            lookups.size() == 2
+    }
+
+    def "should reject non positive probe parallelism"() {
+        when:
+            TemplateFactory.builder()
+                    .setTemplateProbeParallelism(0)
+        then:
+            thrown(IllegalArgumentException)
+    }
+}
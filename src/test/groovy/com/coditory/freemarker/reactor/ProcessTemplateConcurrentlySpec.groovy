@@ -0,0 +1,51 @@
+package com.coditory.freemarker.reactor
+
+import com.coditory.freemarker.reactor.base.InMemoryFreeMarkerTemplateLoader
+import reactor.core.publisher.Flux
+import reactor.core.scheduler.Schedulers
+import spock.lang.Specification
+
+class ProcessTemplateConcurrentlySpec extends Specification {
+    InMemoryFreeMarkerTemplateLoader templateLoader = new InMemoryFreeMarkerTemplateLoader()
+    TemplateFactory engine = TemplateFactory.builder()
+            .setTemplateLoader(templateLoader)
+            .build()
+
+    def "should process single template instance concurrently"() {
+        given:
+            templateLoader.setResponse(new TemplateKey("m", "a", null), "a(<@include \"./x/b\"/>)")
+            templateLoader.setResponse(new TemplateKey("m", "x/b", null), "b(<@include \"./_c\"/>)")
+            templateLoader.setResponse(new TemplateKey("m", "x/_c", null), "c(\${value})")
+            Template template = createTemplate(["m"], "a")
+        when:
+            List<String> results = Flux.range(0, 200)
+                    .flatMap { template.process([value: it]).subscribeOn(Schedulers.parallel()) }
+                    .collectList()
+                    .block()
+        then:
+            results.toSet() == (0..<200).collect { "a(b(c(${it})))".toString() }.toSet()
+    }
+
+    def "should process template with dynamic includes concurrently"() {
+        given:
+            templateLoader.setResponse(new TemplateKey("m", "a", null), "a(<@include name/>)")
+            (0..<20).each {
+                templateLoader.setResponse(new TemplateKey("m", "x" + it, null), "x" + it)
+            }
+            Template template = createTemplate(["m"], "a")
+        when:
+            List<String> results = Flux.range(0, 200)
+                    .flatMap { template.process([name: "x" + (it % 20)]).subscribeOn(Schedulers.parallel()) }
+                    .collectList()
+                    .block()
+        then:
+            results.sort() == (0..<200).collect { "a(x${it % 20})".toString() }.sort()
+    }
+
+    private Template createTemplate(List<String> modules, String name) {
+        TemplateRequest request = TemplateRequest.builder(name)
+                .setModules(modules)
+                .build()
+        return engine.createTemplate(request).block()
+    }
+}
@@ -0,0 +1,80 @@
+package com.coditory.freemarker.reactor
+
+import com.coditory.freemarker.reactor.base.InMemoryFreeMarkerTemplateLoader
+import reactor.core.publisher.Mono
+import spock.lang.Specification
+
+import java.nio.ByteBuffer
+import java.nio.charset.StandardCharsets
+
+class ProcessTemplateToFluxSpec extends Specification {
+    InMemoryFreeMarkerTemplateLoader templateLoader = new InMemoryFreeMarkerTemplateLoader()
+    TemplateFactory engine = TemplateFactory.builder()
+            .setTemplateLoader(templateLoader)
+            .build()
+
+    def "should stream processed template in chunks"() {
+        given:
+            templateLoader.setResponse("a", "<#list 1..count as i>\${text}-\${i};</#list>")
+            templateLoader.setResponse("b", "<@include \"a\"/>")
+            Template template = engine.createTemplate("b").block()
+            Map<String, Object> params = [count: 2000, text: Mono.just("zażółć")]
+        when:
+            List<ByteBuffer> chunks = template.processToFlux(params, StandardCharsets.UTF_8)
+                    .collectList()
+                    .block()
+        then:
+            chunks.size() > 1
+            decode(chunks) == template.process(params).block()
+    }
+
+    def "should stream template with dynamic dependencies"() {
+        given:
+            templateLoader.setResponse("a", "<@include name/>")
+            templateLoader.setResponse("b", "Template: b")
+            Template template = engine.createTemplate("a").block()
+        when:
+            List<ByteBuffer> chunks = template.processToFlux([name: "b"], StandardCharsets.UTF_8)
+                    .collectList()
+                    .block()
+        then:
+            decode(chunks) == "Template: b"
+    }
+
+    def "should encode characters split between writes and chunks"() {
+        given:
+            List<ByteBuffer> chunks = []
+            ByteBufferChunkWriter writer = new ByteBufferChunkWriter(StandardCharsets.UTF_8, 16, { chunks.add(it) })
+            String text = "abcdefghijklmno😀ż" * 3
+        when:
+            text.chars.each { writer.write((int) it) }
+            writer.close()
+        then:
+            chunks.every { it.remaining() <= 16 }
+            decode(chunks) == text
+    }
+
+    def "should reuse chunk and count written bytes"() {
+        given:
+            List<String> chunks = []
+            ByteBufferChunkWriter writer = new ByteBufferChunkWriter(
+                    StandardCharsets.UTF_8, ByteBuffer.allocate(16), { chunks.add(StandardCharsets.UTF_8.decode(it).toString()) })
+            String text = "abcdefghijklmnoż" * 3
+        when:
+            writer.write(text)
+            writer.close()
+        then:
+            chunks.join("") == text
+            writer.getWrittenLength() == text.getBytes(StandardCharsets.UTF_8).length
+    }
+
+    private static String decode(List<ByteBuffer> chunks) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream()
+        chunks.each {
+            byte[] bytes = new byte[it.remaining()]
+            it.get(bytes)
+            output.write(bytes)
+        }
+        return output.toString(StandardCharsets.UTF_8)
+    }
+}
@@ -0,0 +1,118 @@
+package com.coditory.freemarker.reactor
+
+import com.coditory.freemarker.reactor.base.InMemoryFreeMarkerTemplateLoader
+import reactor.core.publisher.Flux
+import reactor.core.publisher.Mono
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.channels.FileChannel
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Duration
+
+import static java.nio.file.StandardOpenOption.CREATE
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING
+import static java.nio.file.StandardOpenOption.WRITE
+
+class ProcessTemplatesInBulkSpec extends Specification {
+    InMemoryFreeMarkerTemplateLoader templateLoader = new InMemoryFreeMarkerTemplateLoader()
+    TemplateFactory engine = TemplateFactory.builder()
+            .setTemplateLoader(templateLoader)
+            .build()
+
+    @TempDir
+    Path directory
+
+    def "should process templates in order of parameters"() {
+        given:
+            templateLoader.setResponse("a", "Hello \${name}")
+            Template template = engine.createTemplate("a").block()
+            Flux<Map<String, Object>> params = Flux.range(0, 100)
+                    .map { [name: Mono.just("user-" + it).delayElement(Duration.ofMillis(100 - it))] as Map<String, Object> }
+        when:
+            List<String> result = template.processAll(params, 16, true)
+                    .collectList()
+                    .block()
+        then:
+            result == (0..<100).collect { "Hello user-" + it }
+    }
+
+    def "should process templates without preserving order"() {
+        given:
+            templateLoader.setResponse("a", "Hello \${name}")
+            Template template = engine.createTemplate("a").block()
+            Flux<Map<String, Object>> params = Flux.range(0, 100)
+                    .map { [name: "user-" + it] as Map<String, Object> }
+        when:
+            List<String> result = template.processAll(params, 4, false)
+                    .collectList()
+                    .block()
+        then:
+            result.toSet() == (0..<100).collect { "Hello user-" + it }.toSet()
+    }
+
+    def "should process templates with dynamic dependencies"() {
+        given:
+            templateLoader.setResponse("a", "<@include name/>")
+            templateLoader.setResponse("b", "Template: b")
+            templateLoader.setResponse("c", "Template: c")
+            Template template = engine.createTemplate("a").block()
+        when:
+            List<String> result = template.processAll(Flux.just([name: "b"], [name: "c"]))
+                    .collectList()
+                    .block()
+        then:
+            result == ["Template: b", "Template: c"]
+    }
+
+    def "should write processed templates to channels"() {
+        given:
+            templateLoader.setResponse("a", "Hello \${name}")
+            Template template = engine.createTemplate("a").block()
+            Flux<Map<String, Object>> params = Flux.range(0, 10)
+                    .map { [name: "user-" + it] as Map<String, Object> }
+        when:
+            template.processAll(
+                    params,
+                    { FileChannel.open(directory.resolve(it.name + ".txt"), CREATE, WRITE, TRUNCATE_EXISTING) },
+                    StandardCharsets.UTF_8,
+                    4
+            ).block()
+        then:
+            (0..<10).every {
+                Files.readString(directory.resolve("user-" + it + ".txt")) == "Hello user-" + it
+            }
+    }
+
+    def "should write processed templates with dynamic dependencies to channels"() {
+        given:
+            templateLoader.setResponse("a", "<@include name/>")
+            (0..<10).each { templateLoader.setResponse("x" + it, "Template: x" + it) }
+            Template template = engine.createTemplate("a").block()
+            Flux<Map<String, Object>> params = Flux.range(0, 10)
+                    .map { [name: "x" + it] as Map<String, Object> }
+        when:
+            template.processAll(
+                    params,
+                    { FileChannel.open(directory.resolve(it.name + ".txt"), CREATE, WRITE, TRUNCATE_EXISTING) },
+                    StandardCharsets.UTF_8,
+                    4
+            ).block()
+        then:
+            (0..<10).every {
+                Files.readString(directory.resolve("x" + it + ".txt")) == "Template: x" + it
+            }
+    }
+
+    def "should reject non positive parallelism"() {
+        given:
+            templateLoader.setResponse("a", "Template: a")
+            Template template = engine.createTemplate("a").block()
+        when:
+            template.processAll(Flux.empty(), 0, true)
+        then:
+            thrown(IllegalArgumentException)
+    }
+}
@@ -57,6 +57,57 @@ class ResolveReactiveParametersSpec extends Specification {
             )
     }
 
+    def "should resolve reactive parameters nested in lists and arrays"() {
+        given:
+            Map<String, Object> params = [
+                    list : ["Resolved", Mono.just("List Mono"), [Mono.just("Nested List Mono")]],
+                    array: ["Resolved", Mono.just("Array Mono")] as Object[]
+            ]
+        when:
+            String result = resolveTemplate([
+                    "list: \${list[0]}, \${list[1]}, \${list[2][0]}",
+                    "array: \${array[0]}, \${array[1]}"
+            ], params)
+        then:
+            result == multiline(
+                    "list: Resolved, List Mono, Nested List Mono",
+                    "array: Resolved, Array Mono"
+            )
+    }
+
+    def "should resolve reactive bean properties when enabled"() {
+        given:
+            TemplateFactory engine = TemplateFactory.builder()
+                    .setTemplateLoader(templateLoader)
+                    .setResolveBeanParameters(true)
+                    .build()
+            templateLoader.setResponse("bean", "\${bean.name}: \${bean.value}")
+        when:
+            String result = engine.createTemplate("bean")
+                    .flatMap { it.process([bean: new SampleBean(name: "Bean", value: Mono.just("Bean Mono"))]) }
+                    .block()
+        then:
+            result == "Bean: Bean Mono"
+    }
+
+    def "should not copy parameters without reactive values"() {
+        given:
+            ParametersResolver resolver = new ParametersResolver(1, true)
+            List<String> list = ["a", "b"]
+            Map<String, Object> params = [list: list, nested: [list: list], mono: Mono.just("M")]
+        when:
+            Map<String, Object> result = resolver.resolveParams(params).block()
+        then:
+            result.mono == "M"
+            result.list.is(list)
+            result.nested.is(params.nested)
+    }
+
+    static class SampleBean {
+        String name
+        Mono<String> value
+    }
+
     private String resolveTemplate(List<String> templateContent, Map<String, Object> params = [:]) {
         String key = "sampleTemplate"
         String content = templateContent.join("\n")
@@ -0,0 +1,79 @@
+package com.coditory.freemarker.reactor
+
+import com.coditory.freemarker.reactor.base.InMemoryFreeMarkerTemplateLoader
+import reactor.core.publisher.Mono
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.util.concurrent.atomic.AtomicInteger
+
+class ResolveReferencedParametersSpec extends Specification {
+    InMemoryFreeMarkerTemplateLoader templateLoader = new InMemoryFreeMarkerTemplateLoader()
+    TemplateFactory engine = TemplateFactory.builder()
+            .setTemplateLoader(templateLoader)
+            .build()
+    Map<String, AtomicInteger> subscriptions = [a: new AtomicInteger(), b: new AtomicInteger()]
+    Map<String, Object> params = [
+            a: Mono.fromCallable { subscriptions.a.incrementAndGet(); "A" },
+            b: Mono.fromCallable { subscriptions.b.incrementAndGet(); "B" }
+    ]
+
+    def "should resolve only parameters referenced by template"() {
+        given:
+            templateLoader.setResponse("template", "<#if true>\${a}<#else>\${b}</#if>")
+        when:
+            String result = process("template")
+        then:
+            result == "A"
+            subscriptions.a.get() == 1
+            subscriptions.b.get() == 0
+    }
+
+    def "should resolve parameters referenced by branches of non literal conditions"() {
+        given:
+            templateLoader.setResponse("template", "<#if flag>\${a}<#else>\${b}</#if>")
+            params.flag = true
+        when:
+            String result = process("template")
+        then:
+            result == "A"
+            subscriptions.a.get() == 1
+            subscriptions.b.get() == 1
+    }
+
+    def "should resolve parameters referenced by included templates"() {
+        given:
+            templateLoader.setResponse("template", "\${a}<@include 'dependency'/>")
+            templateLoader.setResponse("dependency", "<#macro m>\${b}</#macro><@m/>")
+        when:
+            String result = process("template")
+        then:
+            result == "AB"
+            subscriptions.a.get() == 1
+            subscriptions.b.get() == 1
+    }
+
+    @Unroll
+    def "should resolve all parameters for template: #template"() {
+        given:
+            templateLoader.setResponse("template", template)
+            templateLoader.setResponse("dependency", "")
+        when:
+            process("template")
+        then:
+            subscriptions.a.get() == 1
+            subscriptions.b.get() == 1
+        where:
+            template << [
+                    "\${.vars['a']}",
+                    "\${'a'?eval}",
+                    "<#assign name='dependency'><@include name/>"
+            ]
+    }
+
+    private String process(String name) {
+        return engine.createTemplate(name)
+                .flatMap { it.process(params) }
+                .block()
+    }
+}
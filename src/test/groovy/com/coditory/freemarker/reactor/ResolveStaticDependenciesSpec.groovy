@@ -0,0 +1,72 @@
+package com.coditory.freemarker.reactor
+
+import com.coditory.freemarker.reactor.base.InMemoryFreeMarkerTemplateLoader
+import spock.lang.Specification
+
+class ResolveStaticDependenciesSpec extends Specification {
+    InMemoryFreeMarkerTemplateLoader templateLoader = new InMemoryFreeMarkerTemplateLoader()
+    TemplateFactory engine = TemplateFactory.builder()
+            .setTemplateLoader(templateLoader)
+            .build()
+
+    def "should resolve static dependencies before processing"() {
+        given:
+            templateLoader.setResponse("a", "a(<@include \"b\"/>)<@import name=\"c\"/><@c.greet/>")
+            templateLoader.setResponse("b", "b(<#if flag!false><@include \"d\"/></#if>)")
+            templateLoader.setResponse("c", "<#macro greet>c</#macro>")
+            templateLoader.setResponse("d", "d")
+            Template template = engine.createTemplate("a").block()
+            int requestCount = templateLoader.requestCount
+        when:
+            String result = template.process([flag: true]).block()
+        then:
+            result == "a(b(d))c"
+            templateLoader.requestCount == requestCount
+    }
+
+    def "should resolve dynamic dependencies while processing"() {
+        given:
+            templateLoader.setResponse("a", "<@include name/>")
+            templateLoader.setResponse("b", "Template: b")
+            Template template = engine.createTemplate("a").block()
+        when:
+            String result = template.process([name: "b"]).block()
+        then:
+            result == "Template: b"
+    }
+
+    def "should not parse dependencies included without parsing"() {
+        given:
+            templateLoader.setResponse("a", "<@include name=\"b\" parse=false/>")
+            templateLoader.setResponse("b", "<#if>")
+            Template template = engine.createTemplate("a").block()
+        when:
+            String result = template.process().block()
+        then:
+            result == "<#if>"
+    }
+
+    def "should resolve include nested in package index template"() {
+        given:
+            templateLoader.setResponse("a", "a(<@include \"x\"/>)")
+            templateLoader.setResponse("x/_index", "x(<@include \"./_b\"/>)")
+            templateLoader.setResponse("x/_b", "b")
+            Template template = engine.createTemplate("a").block()
+        when:
+            String result = template.process().block()
+        then:
+            result == "a(x(b))"
+    }
+
+    def "should resolve import nested in package index template"() {
+        given:
+            templateLoader.setResponse("a", "<@import \"x\" \"x\"/><@x.greet/>")
+            templateLoader.setResponse("x/_index", "<@import \"./_lib\" \"lib\"/><#macro greet><@lib.hi/></#macro>")
+            templateLoader.setResponse("x/_lib", "<#macro hi>hi</#macro>")
+            Template template = engine.createTemplate("a").block()
+        when:
+            String result = template.process().block()
+        then:
+            result == "hi"
+    }
+}
@@ -0,0 +1,109 @@
+package com.coditory.freemarker.reactor
+
+import com.coditory.freemarker.reactor.base.InMemoryFreeMarkerTemplateLoader
+import reactor.core.publisher.Flux
+import spock.lang.Specification
+
+import java.nio.ByteBuffer
+import java.nio.charset.StandardCharsets
+import java.time.Duration
+
+class StreamFluxParametersSpec extends Specification {
+    InMemoryFreeMarkerTemplateLoader templateLoader = new InMemoryFreeMarkerTemplateLoader()
+    TemplateFactory engine = TemplateFactory.builder()
+            .setTemplateLoader(templateLoader)
+            .build()
+
+    def "should render streamed flux inside list"() {
+        given:
+            templateLoader.setResponse("rows", "<#list rows as row>\${row};</#list>")
+            Template template = engine.createTemplate("rows").block()
+        when:
+            String result = process(template, [rows: StreamedFlux.of(Flux.range(0, 5000), 16)])
+        then:
+            result == (0..<5000).collect { "${it};" }.join("")
+    }
+
+    def "should emit output before streamed flux completes"() {
+        given:
+            templateLoader.setResponse("rows", "<#list rows as row>\${row};</#list>")
+            Template template = engine.createTemplate("rows").block()
+            Flux<Integer> rows = Flux.range(0, 10_000)
+                    .concatWith(Flux.never())
+        when:
+            ByteBuffer first = template.processToFlux([rows: StreamedFlux.of(rows)], StandardCharsets.UTF_8)
+                    .next()
+                    .block(Duration.ofSeconds(5))
+        then:
+            first.remaining() > 0
+            StandardCharsets.UTF_8.decode(first).toString().startsWith("0;1;2;")
+    }
+
+    def "should consume streamed flux once when resolving dynamic includes"() {
+        given:
+            templateLoader.setResponse("rows", "<@include name/><#list rows as row>\${row};</#list>")
+            templateLoader.setResponse("header", "Rows:")
+            Template template = engine.createTemplate("rows").block()
+            int subscriptions = 0
+            Flux<Integer> rows = Flux.range(0, 3)
+                    .doOnSubscribe { subscriptions++ }
+        when:
+            String result = process(template, [name: "header", rows: StreamedFlux.of(rows)])
+        then:
+            result == "Rows:0;1;2;"
+            subscriptions == 1
+    }
+
+    def "should reject streamed flux when processing to string"() {
+        given:
+            templateLoader.setResponse("rows", "<#list rows as row>\${row};</#list>")
+            Template template = engine.createTemplate("rows").block()
+        when:
+            template.process([rows: StreamedFlux.of(Flux.range(0, 3))]).block()
+        then:
+            IllegalArgumentException e = thrown()
+            e.message == StreamedFlux.UNSUPPORTED_MESSAGE
+    }
+
+    def "should reject streamed flux when processing in bulk"() {
+        given:
+            templateLoader.setResponse("rows", "<#list rows as row>\${row};</#list>")
+            Template template = engine.createTemplate("rows").block()
+            Flux<Map<String, Object>> params = Flux.just([rows: StreamedFlux.of(Flux.range(0, 3))] as Map<String, Object>)
+        when:
+            template.processAll(params).collectList().block()
+        then:
+            IllegalArgumentException e = thrown()
+            e.message == StreamedFlux.UNSUPPORTED_MESSAGE
+    }
+
+    def "should reject nested streamed flux when processing to string"() {
+        given:
+            templateLoader.setResponse("rows", "<#list data.rows as row>\${row};</#list>")
+            Template template = engine.createTemplate("rows").block()
+        when:
+            template.process([data: [rows: StreamedFlux.of(Flux.range(0, 3))]]).block()
+        then:
+            TemplateResolutionException e = thrown()
+            e.cause.message.contains(StreamedFlux.UNSUPPORTED_MESSAGE)
+    }
+
+    def "should include templates that depend on streamed rows"() {
+        given:
+            templateLoader.setResponse("rows", "<#list rows as row><@include row/></#list>")
+            templateLoader.setResponse("a", "A")
+            templateLoader.setResponse("b", "B")
+            Template template = engine.createTemplate("rows").block()
+        when:
+            String result = process(template, [rows: StreamedFlux.of(Flux.just("a", "b", "a"))])
+        then:
+            result == "ABA"
+    }
+
+    private static String process(Template template, Map<String, Object> params) {
+        List<ByteBuffer> chunks = template.processToFlux(params, StandardCharsets.UTF_8)
+                .collectList()
+                .block()
+        return chunks.collect { StandardCharsets.UTF_8.decode(it).toString() }.join("")
+    }
+}
@@ -0,0 +1,61 @@
+package com.coditory.freemarker.reactor
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class TemplateKeySpec extends Specification {
+    @Unroll
+    def "should resolve dependency key: #template + #dependency -> #expected"() {
+        given:
+            TemplateKey key = new TemplateKey("m", template, Locale.GERMAN)
+        when:
+            TemplateKey result = key.dependencyKey(dependency)
+        then:
+            result == new TemplateKey("m", expected, Locale.GERMAN)
+            result.hashCode() == new TemplateKey("m", expected, Locale.GERMAN).hashCode()
+        where:
+            template | dependency | expected
+            "a"      | "b"        | "b"
+            "x/a"    | "./b"      | "x/b"
+            "x/y/a"  | "../b"     | "x/b"
+            "x/a"    | "./_c"     | "x/_c"
+    }
+
+    def "should reuse derived keys"() {
+        given:
+            TemplateKey key = new TemplateKey("m", "x/a", Locale.GERMAN)
+        expect:
+            key.dependencyKey("./b").is(key.dependencyKey("./b"))
+            key.withNameCached("x/b").is(key.withNameCached("x/b"))
+            key.withNoLocale().is(key.withNoLocale())
+            key.toMinimalKey().is(key.toMinimalKey())
+            key.withLocale(Locale.FRENCH).withNoLocale().is(key.withNoLocale())
+    }
+
+    def "should create minimal key"() {
+        expect:
+            new TemplateKey("m", "x/a", Locale.GERMAN).toMinimalKey() == new TemplateKey(null, "x/a", null)
+            new TemplateKey("m", "x/_a", Locale.GERMAN).toMinimalKey() == new TemplateKey("m", "x/_a", null)
+    }
+
+    @Unroll
+    def "should check accessibility: #dependency from #template -> #expected"() {
+        expect:
+            new TemplateKey(null, dependency, null).isAccessibleFrom(new TemplateKey(null, template, null)) == expected
+        where:
+            template | dependency | expected
+            "a"      | "b"        | true
+            "a"      | "_b"       | true
+            "x/a"    | "x/_b"     | true
+            "x/a"    | "_b"       | false
+            "a"      | "x/_b"     | false
+            "x/a"    | "y/_b"     | false
+    }
+
+    def "should validate names of derived keys"() {
+        when:
+            new TemplateKey(null, "a", null).dependencyKey("../../b")
+        then:
+            thrown(IllegalArgumentException)
+    }
+}
@@ -0,0 +1,91 @@
+package com.coditory.freemarker.reactor
+
+import com.coditory.freemarker.reactor.base.InMemoryFreeMarkerTemplateLoader
+import com.coditory.freemarker.reactor.loader.CachedTemplateLoader
+import com.coditory.freemarker.reactor.loader.FileTemplateLoader
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+class WarmUpTemplatesSpec extends Specification {
+    InMemoryFreeMarkerTemplateLoader templateLoader = new InMemoryFreeMarkerTemplateLoader()
+    @TempDir
+    Path directory
+
+    def setup() {
+        templateLoader.setResponse("a", "A(<@include 'x'/>)")
+        templateLoader.setResponse("x/_index", "X(<@include './_part'/>)")
+        templateLoader.setResponse("x/_part", "P")
+    }
+
+    def "should warm up requested templates and report failures"() {
+        given:
+            TemplateFactory factory = TemplateFactory.builder()
+                    .setTemplateLoader(templateLoader)
+                    .build()
+            TemplateRequest missing = TemplateRequest.builder("missing").build()
+        when:
+            WarmUpReport report = factory.warmUp([
+                    TemplateRequest.builder("a").build(),
+                    missing
+            ]).block()
+        then:
+            report.templates == 2
+            report.createdTemplates == 1
+            !report.successful
+            report.failures.keySet() == [missing] as Set
+            report.failures[missing] instanceof TemplateCreationException
+    }
+
+    def "should warm up all listed templates"() {
+        given:
+            TemplateFactory factory = TemplateFactory.builder()
+                    .setTemplateLoader(new CachedTemplateLoader(templateLoader))
+                    .build()
+        when:
+            WarmUpReport report = factory.warmUp().block()
+        then:
+            report.successful
+            report.templates == 2
+        when:
+            int requestCount = templateLoader.requestCount
+            String result = factory.createTemplate("a")
+                    .flatMap { it.process() }
+                    .block()
+        then:
+            result == "A(X(P))"
+            templateLoader.requestCount == requestCount
+    }
+
+    def "should warm up each template file once"() {
+        given:
+            Files.createDirectories(directory.resolve("x"))
+            Files.writeString(directory.resolve("a.ftl"), "A")
+            Files.writeString(directory.resolve("x/b.ftl"), "B")
+            TemplateFactory factory = TemplateFactory.builder()
+                    .setTemplateLoader(new FileTemplateLoader(directory))
+                    .build()
+        when:
+            WarmUpReport report = factory.warmUp().block()
+        then:
+            report.successful
+            report.templates == 2
+    }
+
+    def "should warm up module template files once"() {
+        given:
+            Files.createDirectories(directory.resolve("x"))
+            Files.writeString(directory.resolve("x/b.ftl"), "B")
+            TemplateFactory factory = TemplateFactory.builder()
+                    .setTemplateLoader(new FileTemplateLoader(directory))
+                    .setCommonModules(["x"])
+                    .build()
+        when:
+            WarmUpReport report = factory.warmUp().block()
+        then:
+            report.successful
+            report.templates == 1
+    }
+}
@@ -0,0 +1,62 @@
+package com.coditory.freemarker.reactor
+
+import com.coditory.freemarker.reactor.loader.CachedTemplateLoader
+import com.coditory.freemarker.reactor.loader.FileTemplateLoader
+import spock.lang.Specification
+import spock.lang.TempDir
+import spock.util.concurrent.PollingConditions
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+class WatchTemplateChangesSpec extends Specification {
+    @TempDir
+    Path directory
+    FileTemplateLoader fileLoader
+    TemplateFactory factory
+
+    void setup() {
+        Files.writeString(directory.resolve("a.ftl"), "A(<@include 'b'/>)")
+        Files.writeString(directory.resolve("b.ftl"), "B")
+        fileLoader = new FileTemplateLoader(directory, ".ftl", true)
+        factory = TemplateFactory.builder()
+                .setTemplateLoader(new CachedTemplateLoader(fileLoader))
+                .setCompiledTemplateCacheSize(10)
+                .build()
+    }
+
+    void cleanup() {
+        factory?.close()
+        fileLoader?.close()
+    }
+
+    def "should render modified dependency"() {
+        expect:
+            render("a") == "A(B)"
+        when:
+            Files.writeString(directory.resolve("b.ftl"), "C")
+        then:
+            new PollingConditions(timeout: 10).eventually {
+                assert render("a") == "A(C)"
+            }
+    }
+
+    def "should render template created after a miss"() {
+        when:
+            factory.createTemplate("c").block()
+        then:
+            thrown(TemplateCreationException)
+        when:
+            Files.writeString(directory.resolve("c.ftl"), "C")
+        then:
+            new PollingConditions(timeout: 10).eventually {
+                assert render("c") == "C"
+            }
+    }
+
+    private String render(String name) {
+        return factory.createTemplate(name)
+                .flatMap { it.process() }
+                .block()
+    }
+}
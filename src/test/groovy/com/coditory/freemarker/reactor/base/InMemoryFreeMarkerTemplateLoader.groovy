@@ -2,6 +2,7 @@ package com.coditory.freemarker.reactor.base
 
 import com.coditory.freemarker.reactor.TemplateKey
 import com.coditory.freemarker.reactor.loader.TemplateLoader
+import reactor.core.publisher.Flux
 import reactor.core.publisher.Mono
 
 class InMemoryFreeMarkerTemplateLoader implements TemplateLoader {
@@ -15,6 +16,15 @@ class InMemoryFreeMarkerTemplateLoader implements TemplateLoader {
         return responses.getOrDefault(key, defaultResponse)
     }
 
+    @Override
+    Flux<TemplateKey> listTemplates() {
+        return Flux.fromIterable(new ArrayList<>(responses.keySet()))
+    }
+
+    int getRequestCount() {
+        return requestCount
+    }
+
     void setDefaultResponse(Mono<String> defaultResponse) {
         this.defaultResponse = defaultResponse
     }
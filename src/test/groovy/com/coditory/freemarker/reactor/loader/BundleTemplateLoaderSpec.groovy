@@ -0,0 +1,94 @@
+package com.coditory.freemarker.reactor.loader
+
+import com.coditory.freemarker.reactor.ResolvedTemplate
+import com.coditory.freemarker.reactor.TemplateKey
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+class BundleTemplateLoaderSpec extends Specification {
+    @TempDir
+    Path directory
+    BundleTemplateLoader loader
+
+    def setup() {
+        Path templates = directory.resolve("templates")
+        write(templates.resolve("a.ftl"), "A")
+        write(templates.resolve("a_de.ftl"), "A-de")
+        write(templates.resolve("x/_index.ftl"), "X")
+        write(templates.resolve("module/b_pl_PL.ftl"), "B-pl \u0105")
+        write(templates.resolve("ignored.txt"), "ignored")
+        Path bundle = directory.resolve("templates.bundle")
+        TemplateBundleWriter.write(templates, bundle, ".ftl")
+        loader = new BundleTemplateLoader(bundle)
+    }
+
+    def "should load templates from bundle"() {
+        expect:
+            load(new TemplateKey(null, "a", null)) == "A"
+            load(new TemplateKey(null, "a", Locale.GERMAN)) == "A-de"
+            load(new TemplateKey(null, "x/_index", null)) == "X"
+            load(new TemplateKey("module", "b", new Locale("pl", "PL"))) == "B-pl \u0105"
+    }
+
+    def "should return empty for missing templates"() {
+        expect:
+            load(new TemplateKey(null, "missing", null)) == null
+            load(new TemplateKey(null, "ignored", null)) == null
+            load(new TemplateKey("module", "b", null)) == null
+    }
+
+    def "should load first matching template from candidate list"() {
+        given:
+            List<TemplateKey> candidates = [
+                    new TemplateKey(null, "a", Locale.GERMANY),
+                    new TemplateKey(null, "a", Locale.GERMAN),
+                    new TemplateKey(null, "a", null)
+            ]
+        when:
+            ResolvedTemplate resolved = loader.loadFirst(candidates).block()
+        then:
+            resolved.key == new TemplateKey(null, "a", Locale.GERMAN)
+            resolved.content == "A-de"
+        and:
+            loader.loadFirst([new TemplateKey(null, "missing", null)]).block() == null
+    }
+
+    def "should list bundled templates"() {
+        when:
+            Set<TemplateKey> keys = loader.listTemplates().collectList().block().toSet()
+        then:
+            keys.contains(new TemplateKey(null, "a", null))
+            keys.contains(new TemplateKey(null, "a", Locale.GERMAN))
+            keys.contains(new TemplateKey("module", "b", new Locale("pl", "PL")))
+    }
+
+    def "should reject loads after close"() {
+        when:
+            loader.close()
+            load(new TemplateKey(null, "a", null))
+        then:
+            thrown(TemplateLoadingException)
+    }
+
+    def "should reject invalid bundle file"() {
+        given:
+            Path invalid = directory.resolve("invalid.bundle")
+            Files.writeString(invalid, "invalid bundle")
+        when:
+            new BundleTemplateLoader(invalid)
+        then:
+            thrown(TemplateLoadingException)
+    }
+
+    private String load(TemplateKey key) {
+        return loader.loadTemplate(key).block()
+    }
+
+    private static void write(Path path, String content) {
+        Files.createDirectories(path.parent)
+        Files.writeString(path, content)
+    }
+}
@@ -0,0 +1,145 @@
+package com.coditory.freemarker.reactor.loader
+
+import com.coditory.freemarker.reactor.TemplateKey
+import reactor.core.publisher.Mono
+import spock.lang.Specification
+
+import java.time.Duration
+
+class ChainedTemplateLoaderSpec extends Specification {
+    TemplateKey key = new TemplateKey(null, "a", null)
+
+    def "should not probe fallback loaders when first loader has the template"() {
+        given:
+            RecordingLoader first = new RecordingLoader("first")
+            RecordingLoader second = new RecordingLoader("second")
+            ChainedTemplateLoader loader = new ChainedTemplateLoader([first, second])
+        when:
+            String result = loader.loadTemplate(key).block()
+        then:
+            result == "first"
+            first.probes == 1
+            second.probes == 0
+    }
+
+    def "should probe loaders in order until first hit"() {
+        given:
+            RecordingLoader first = new RecordingLoader(null)
+            RecordingLoader second = new RecordingLoader("second")
+            RecordingLoader third = new RecordingLoader("third")
+            ChainedTemplateLoader loader = new ChainedTemplateLoader([first, second, third])
+        when:
+            String result = loader.loadTemplate(key).block()
+        then:
+            result == "second"
+            first.probes == 1
+            second.probes == 1
+            third.probes == 0
+    }
+
+    def "should start loader that answered last time right away in hedged mode"() {
+        given:
+            RecordingLoader first = new RecordingLoader(null, Duration.ofMillis(100))
+            RecordingLoader second = new RecordingLoader("second")
+            ChainedTemplateLoader loader = new ChainedTemplateLoader([first, second], Duration.ofSeconds(5))
+            loader.loadTemplate(key).block()
+        when:
+            Mono<String> result = loader.loadTemplate(key)
+            result.subscribe()
+            int secondProbesOnSubscribe = second.probes
+        then:
+            secondProbesOnSubscribe == 2
+            result.block() == "second"
+    }
+
+    def "should prefer loader with higher priority over loader that answered last time"() {
+        given:
+            RecordingLoader first = new RecordingLoader(null, Duration.ofMillis(50))
+            RecordingLoader second = new RecordingLoader("second")
+            ChainedTemplateLoader loader = new ChainedTemplateLoader([first, second], Duration.ofSeconds(5))
+            loader.loadTemplate(key).block()
+        when:
+            first.content = "first"
+            String result = loader.loadTemplate(key).block()
+        then:
+            result == "first"
+            first.probes == 2
+    }
+
+    def "should cancel hedged probe when loader with higher priority answers"() {
+        given:
+            RecordingLoader first = new RecordingLoader("first", Duration.ofMillis(100))
+            RecordingLoader second = new RecordingLoader("second", Duration.ofSeconds(5))
+            ChainedTemplateLoader loader = new ChainedTemplateLoader([first, second], Duration.ofMillis(10))
+        when:
+            String result = loader.loadTemplate(key).block()
+        then:
+            result == "first"
+            second.probes == 1
+            second.cancellations == 1
+    }
+
+    def "should return empty when no loader has the template"() {
+        given:
+            ChainedTemplateLoader loader = new ChainedTemplateLoader([new RecordingLoader(null), new RecordingLoader(null)])
+        expect:
+            loader.loadTemplate(key).block() == null
+    }
+
+    def "should start next loader when current one does not answer within hedge delay"() {
+        given:
+            RecordingLoader first = new RecordingLoader("first", Duration.ofMillis(300))
+            RecordingLoader second = new RecordingLoader("second")
+            ChainedTemplateLoader loader = new ChainedTemplateLoader([first, second], Duration.ofMillis(50))
+        when:
+            String result = loader.loadTemplate(key).block()
+        then:
+            result == "first"
+            first.probes == 1
+            second.probes == 1
+    }
+
+    def "should return result of next loader when slow loader misses in hedged mode"() {
+        given:
+            RecordingLoader first = new RecordingLoader(null, Duration.ofMillis(200))
+            RecordingLoader second = new RecordingLoader("second")
+            ChainedTemplateLoader loader = new ChainedTemplateLoader([first, second], Duration.ofMillis(10))
+        expect:
+            loader.loadTemplate(key).block() == "second"
+    }
+
+    def "should not start next loader when current one answers within hedge delay"() {
+        given:
+            RecordingLoader first = new RecordingLoader("first")
+            RecordingLoader second = new RecordingLoader("second")
+            ChainedTemplateLoader loader = new ChainedTemplateLoader([first, second], Duration.ofMillis(100))
+        when:
+            String result = loader.loadTemplate(key).block()
+            Thread.sleep(200)
+        then:
+            result == "first"
+            second.probes == 0
+    }
+
+    static class RecordingLoader implements TemplateLoader {
+        private final Duration delay
+        volatile String content
+        volatile int probes = 0
+        volatile int cancellations = 0
+
+        RecordingLoader(String content, Duration delay = Duration.ZERO) {
+            this.content = content
+            this.delay = delay
+        }
+
+        @Override
+        Mono<String> loadTemplate(TemplateKey key) {
+            return Mono.defer {
+                probes++
+                return Mono.delay(delay)
+                        .then(Mono.fromCallable { content })
+                        .doOnCancel { cancellations++ }
+            }
+        }
+    }
+}
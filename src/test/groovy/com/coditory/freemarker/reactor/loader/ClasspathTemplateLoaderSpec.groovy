@@ -0,0 +1,132 @@
+package com.coditory.freemarker.reactor.loader
+
+import com.coditory.freemarker.reactor.ResolvedTemplate
+import com.coditory.freemarker.reactor.TemplateKey
+import reactor.core.publisher.Flux
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.jar.JarEntry
+import java.util.jar.JarOutputStream
+
+import static java.nio.charset.StandardCharsets.UTF_8
+
+class ClasspathTemplateLoaderSpec extends Specification {
+    @TempDir
+    Path directory
+
+    def "should load templates from jar concurrently"() {
+        given:
+            Map<String, String> templates = (0..<50).collectEntries { ["templates/t${it}.ftl".toString(), "T${it}".toString()] }
+            ClasspathTemplateLoader loader = createLoader(templates)
+        when:
+            List<String> results = Flux.range(0, 200)
+                    .flatMap({ i -> loader.loadTemplate(new TemplateKey(null, "t${i % 50}", null)) }, 32)
+                    .collectList()
+                    .block()
+        then:
+            results.size() == 200
+            results.toSet() == templates.values().toSet()
+        cleanup:
+            loader?.close()
+    }
+
+    def "should load template from jar without directory entries"() {
+        given:
+            ClasspathTemplateLoader loader = createLoader(["templates/a.ftl": "A"], false)
+        expect:
+            loader.loadTemplate(new TemplateKey(null, "a", null)).block() == "A"
+        cleanup:
+            loader?.close()
+    }
+
+    def "should return empty for missing template"() {
+        given:
+            ClasspathTemplateLoader loader = createLoader(["templates/a.ftl": "A"])
+        expect:
+            loader.loadTemplate(new TemplateKey(null, "missing", null)).block() == null
+            loader.loadTemplate(new TemplateKey(null, "missing", null)).block() == null
+        cleanup:
+            loader?.close()
+    }
+
+    def "should load templates after close"() {
+        given:
+            ClasspathTemplateLoader loader = createLoader(["templates/a.ftl": "A"])
+            loader.loadTemplate(new TemplateKey(null, "a", null)).block()
+        when:
+            loader.close()
+        then:
+            loader.loadTemplate(new TemplateKey(null, "a", null)).block() == "A"
+        cleanup:
+            loader?.close()
+    }
+
+    def "should load first existing candidate"() {
+        given:
+            ClasspathTemplateLoader loader = createLoader(["templates/b.ftl": "B", "templates/c.ftl": "C"], directoryEntries)
+            List<TemplateKey> keys = ["a", "b", "c"].collect { new TemplateKey(null, it, null) }
+        when:
+            ResolvedTemplate result = loader.loadFirst(keys).block()
+        then:
+            result.key.name == "b"
+            result.content == "B"
+        cleanup:
+            loader?.close()
+        where:
+            directoryEntries << [true, false]
+    }
+
+    def "should look up missing templates with classloader at most once"() {
+        given:
+            CountingClassLoader classLoader = createClassLoader(["templates/a.ftl": "A"], directoryEntries)
+            ClasspathTemplateLoader loader = new ClasspathTemplateLoader("templates", ".ftl", classLoader)
+        when:
+            2.times { loader.loadTemplate(new TemplateKey(null, "missing", null)).block() }
+        then:
+            classLoader.lookups.get() == lookups
+        cleanup:
+            loader?.close()
+        where:
+            directoryEntries | lookups
+            true             | 0
+            false            | 1
+    }
+
+    private ClasspathTemplateLoader createLoader(Map<String, String> templates, boolean directoryEntries = true) {
+        return new ClasspathTemplateLoader("templates", ".ftl", createClassLoader(templates, directoryEntries))
+    }
+
+    private CountingClassLoader createClassLoader(Map<String, String> templates, boolean directoryEntries) {
+        Path jar = directory.resolve("templates.jar")
+        new JarOutputStream(Files.newOutputStream(jar)).withCloseable { out ->
+            if (directoryEntries) {
+                out.putNextEntry(new JarEntry("templates/"))
+                out.closeEntry()
+            }
+            templates.each { name, content ->
+                out.putNextEntry(new JarEntry(name))
+                out.write(content.getBytes(UTF_8))
+                out.closeEntry()
+            }
+        }
+        return new CountingClassLoader(jar.toUri().toURL())
+    }
+
+    static class CountingClassLoader extends URLClassLoader {
+        AtomicInteger lookups = new AtomicInteger()
+
+        CountingClassLoader(URL url) {
+            super([url] as URL[], (ClassLoader) null)
+        }
+
+        @Override
+        URL getResource(String name) {
+            lookups.incrementAndGet()
+            return super.getResource(name)
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.coditory.freemarker.reactor.loader
+
+import reactor.core.Exceptions
+import spock.lang.Specification
+import spock.lang.TempDir
+import spock.lang.Unroll
+
+import java.nio.file.Files
+import java.nio.file.NoSuchFileException
+import java.nio.file.Path
+
+import static java.nio.charset.StandardCharsets.UTF_8
+
+class FileReaderSpec extends Specification {
+    @TempDir
+    Path directory
+
+    @Unroll
+    def "should read file with #size characters"() {
+        given:
+            String content = generateContent(size)
+            Path file = directory.resolve("template.ftl")
+            Files.writeString(file, content, UTF_8)
+        when:
+            String result = FileReader.readText(file).block()
+        then:
+            result == content
+        where:
+            size << [0, 1, 100, FileReader.MIN_BUFFER_SIZE, 100 * 1024, FileReader.STREAMED_READ_THRESHOLD + 1]
+    }
+
+    def "should fail reading missing file"() {
+        when:
+            FileReader.readText(directory.resolve("missing.ftl")).block()
+        then:
+            Throwable e = thrown()
+            Exceptions.unwrap(e) instanceof NoSuchFileException
+    }
+
+    private static String generateContent(long size) {
+        StringBuilder builder = new StringBuilder()
+        while (builder.length() < size) {
+            builder.append("Za\u017c\u00f3\u0142\u0107 g\u0119\u015bl\u0105 ${builder.length()}\n")
+        }
+        builder.setLength((int) size)
+        return builder.toString()
+    }
+}
@@ -0,0 +1,26 @@
+package com.coditory.freemarker.reactor.loader
+
+import com.coditory.freemarker.reactor.TemplateKey
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.nio.file.Path
+
+class TemplateFileNamesSpec extends Specification {
+    @Unroll
+    def "should map file #file to template keys"() {
+        when:
+            List<TemplateKey> keys = TemplateFileNames.toTemplateKeys(Path.of(file), ".ftl")
+        then:
+            keys.collect { it.toString() } == expected
+        where:
+            file                | expected
+            "a.ftl"             | ["'a'"]
+            "a.txt"             | []
+            "a_de.ftl"          | ["'a'(de)"]
+            "a_de_DE.ftl"       | ["'a'(de_DE)"]
+            "x/_index.ftl"      | ["'x/_index'", "'x:_index'"]
+            "x/_b_de.ftl"       | ["'x/_b'(de)", "'x:_b'(de)"]
+            "x/y/b_pl_PL.ftl"   | ["'x/y/b'(pl_PL)", "'x:y/b'(pl_PL)"]
+    }
+}